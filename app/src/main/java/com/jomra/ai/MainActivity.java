@@ -1,6 +1,8 @@
 package com.jomra.ai;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
@@ -16,6 +18,7 @@ import android.content.Intent;
 import com.jomra.ai.agents.*;
 import com.jomra.ai.agents.advanced.*;
 import com.jomra.ai.api.APIClient;
+import com.jomra.ai.memory.MemoryCompactionWorker;
 import com.jomra.ai.memory.MemorySystem;
 import com.jomra.ai.models.ModelCatalog;
 import com.jomra.ai.models.ModelInfo;
@@ -27,6 +30,7 @@ import java.util.Map;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
+    private static final long STREAM_RENDER_INTERVAL_MS = 50;
 
     private TextInputEditText etUserInput;
     private MaterialButton btnSend;
@@ -48,6 +52,7 @@ public class MainActivity extends AppCompatActivity {
 
     private AgentMode currentMode = AgentMode.QA;
     private int messageCount = 0;
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
 
     private enum AgentMode { QA, TOOL, RL, MOAZIZ }
 
@@ -122,10 +127,16 @@ public class MainActivity extends AppCompatActivity {
                 modelManager = new ModelManager(this);
                 toolRegistry = new ToolRegistry(this);
                 apiClient = new APIClient();
-                memorySystem = new MemorySystem(this);
+                memorySystem = new MemorySystem(this, modelManager);
+                MemoryCompactionWorker.schedule(this);
                 orchestrator = new AgentOrchestrator();
+                ResponseCache responseCache = new ResponseCache(memorySystem.getEmbeddingEngine());
+                responseCache.setCacheable("rl_agent", false); // learns from every turn
+                responseCache.setCacheable("moaziz_agent", false); // answers from memory recall, which changes every turn
+                orchestrator.setResponseCache(responseCache);
 
-                Agent qaAgent = new QAAgent(this, modelManager);
+                // Shared by the orchestrator, ChainOfThought and Moaziz; identical concurrent calls run once
+                Agent qaAgent = new SingleFlightAgent(new QAAgent(this, modelManager));
                 orchestrator.registerAgent(qaAgent);
                 orchestrator.registerAgent(new RLAgent(this, modelManager));
                 orchestrator.registerAgent(new ToolAgent(this, toolRegistry));
@@ -201,6 +212,7 @@ public class MainActivity extends AppCompatActivity {
         addMessageToHistory("You", input, true);
         etUserInput.setText("");
         showLoading(true);
+        StreamingBubble bubble = new StreamingBubble(typingIndicator);
         new Thread(() -> {
             try {
                 AgentContext context = new AgentContext.Builder()
@@ -212,9 +224,9 @@ public class MainActivity extends AppCompatActivity {
                     .build();
                 AgentResponse response;
                 if (currentMode == AgentMode.MOAZIZ) {
-                    response = orchestrator.processPipeline(context, input, new String[]{"moaziz_agent"});
+                    response = orchestrator.processPipeline(context, input, new String[]{"moaziz_agent"}, bubble);
                 } else {
-                    response = orchestrator.processSingle(context, input);
+                    response = orchestrator.processSingle(context, input, bubble);
                 }
 
                 if (response != null && response.isSuccess()) {
@@ -235,6 +247,59 @@ public class MainActivity extends AppCompatActivity {
         }).start();
     }
 
+    /**
+     * Shows streamed reasoning, tool events and answer text in the typing
+     * indicator. Agent threads only append; the view is redrawn at most once
+     * per {@link #STREAM_RENDER_INTERVAL_MS}.
+     */
+    private class StreamingBubble implements ResponseSink {
+        private final View target;
+        private final StringBuilder progress = new StringBuilder();
+        private final StringBuilder answer = new StringBuilder();
+        private boolean renderPending = false; // guarded by this
+
+        StreamingBubble(View target) {
+            this.target = target;
+        }
+
+        @Override public void onPartialText(String delta) {
+            if (delta == null || delta.isEmpty()) return;
+            synchronized (this) { answer.append(delta); }
+            scheduleRender();
+        }
+
+        @Override public void onReasoningStep(String step) {
+            synchronized (this) { progress.append("- ").append(step).append('\n'); }
+            scheduleRender();
+        }
+
+        @Override public void onToolEvent(String toolName, String event) {
+            synchronized (this) { progress.append('[').append(toolName).append("] ").append(event).append('\n'); }
+            scheduleRender();
+        }
+
+        private void scheduleRender() {
+            synchronized (this) {
+                if (renderPending) return;
+                renderPending = true;
+            }
+            uiHandler.postDelayed(this::render, STREAM_RENDER_INTERVAL_MS);
+        }
+
+        private void render() {
+            String text;
+            synchronized (this) {
+                renderPending = false;
+                text = answer.length() > 0 ? progress + "\n" + answer : progress.toString();
+            }
+            // The indicator is gone once the final response is shown
+            if (target == null || target.getParent() == null) return;
+            TextView tvMsg = target.findViewById(R.id.tvMessage);
+            tvMsg.setText(text.trim());
+            scrollView.post(() -> scrollView.fullScroll(View.FOCUS_DOWN));
+        }
+    }
+
     private void displayResponse(AgentResponse response) {
         if (response == null) return;
         String text = response.getText();
@@ -321,6 +386,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         if (orchestrator != null) orchestrator.shutdown();
+        if (memorySystem != null) memorySystem.shutdown();
         if (modelManager != null) modelManager.unloadAll();
     }
 }
@@ -1,5 +1,8 @@
 package com.jomra.ai.agents;
 
+import java.util.Collection;
+import java.util.Collections;
+
 public interface Agent {
     String getId();
     String getName();
@@ -9,4 +12,24 @@ public interface Agent {
     void shutdown();
     HealthStatus getHealthStatus();
     long getEstimatedLatencyMs();
+
+    /**
+     * Agents this one calls internally. The orchestrator never hedges an agent
+     * with one that shares its delegates, as both would compete for the same
+     * interpreter.
+     */
+    default Collection<Agent> getDelegates() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Like {@link #process}, also reporting progress to {@code sink} as it
+     * happens. Agents without intermediate output emit the final text once.
+     */
+    default AgentResponse processStreaming(AgentContext context, AgentInput input,
+                                           ResponseSink sink) throws AgentException {
+        AgentResponse response = process(context, input);
+        if (response != null && response.isSuccess()) sink.onPartialText(response.getText());
+        return response;
+    }
 }
@@ -0,0 +1,264 @@
+package com.jomra.ai.agents;
+
+import android.util.Log;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * TUBER: Admission-controlled pool for agent calls.
+ *
+ * Calls are queued by {@link Priority} (FIFO within a priority) in a bounded
+ * queue; a call cancelled while still queued is removed and frees its queue
+ * slot at once. Each agent has a bulkhead limiting its queued plus running
+ * calls; a cancelled call keeps its slot until its thread actually returns, so
+ * abandoned inference cannot pile up. Calls that cannot be admitted, or that
+ * waited longer than their queue deadline, complete with
+ * {@link AgentResponse.ResponseStatus#REJECTED} instead of running.
+ */
+public class AgentExecutor {
+    private static final String TAG = "AgentExecutor";
+
+    public enum Priority {
+        /** The user is waiting on this answer. */
+        INTERACTIVE,
+        /** Speculative work such as hedges. */
+        NORMAL,
+        /** Fan-out whose results are optional, e.g. ensemble members. */
+        BACKGROUND
+    }
+
+    private final PriorityPool pool;
+    private final int queueCapacity;
+    private final Semaphore queueSlots;
+    private final int maxInFlightPerAgent;
+    private final long queueDeadlineMs;
+    private final Map<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong maxWaitMs = new AtomicLong();
+
+    public AgentExecutor(int threads, int queueCapacity, int maxInFlightPerAgent, long queueDeadlineMs) {
+        this.queueCapacity = queueCapacity;
+        this.maxInFlightPerAgent = maxInFlightPerAgent;
+        this.queueDeadlineMs = queueDeadlineMs;
+        this.queueSlots = new Semaphore(queueCapacity);
+        this.pool = new PriorityPool(threads, new PriorityBlockingQueue<>(queueCapacity, this::compare));
+    }
+
+    /**
+     * Queues {@code call} for {@code agent}. The returned future is already
+     * complete with a REJECTED response if the agent's bulkhead or the queue is
+     * full. When {@code completions} is given, the future is added to it once
+     * done, like an {@link java.util.concurrent.ExecutorCompletionService}.
+     */
+    public Future<AgentResponse> submit(Agent agent, Priority priority, Callable<AgentResponse> call,
+                                        BlockingQueue<Future<AgentResponse>> completions) {
+        return submit(agent, priority, call, response -> response, completions);
+    }
+
+    /**
+     * As above for calls that wrap an agent call in another result type (e.g.
+     * a workflow node's outcome); {@code onRejected} turns the REJECTED
+     * response into that type.
+     */
+    public <T> Future<T> submit(Agent agent, Priority priority, Callable<T> call,
+                                Function<AgentResponse, T> onRejected, BlockingQueue<Future<T>> completions) {
+        submitted.incrementAndGet();
+        Semaphore bulkhead = bulkheads.computeIfAbsent(agent.getId(), k -> new Semaphore(maxInFlightPerAgent));
+        AgentTask<T> task = new AgentTask<>(call, priority, onRejected, completions);
+        if (!bulkhead.tryAcquire()) {
+            return reject(task, agent.getName() + " is at its concurrency limit");
+        }
+        task.bulkhead = bulkhead;
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            return reject(task, "Agent queue is full");
+        }
+        return task;
+    }
+
+    private <T> Future<T> reject(AgentTask<T> task, String reason) {
+        rejected.incrementAndGet();
+        Log.w(TAG, "Rejected agent call: " + reason);
+        task.reject(reason);
+        return task;
+    }
+
+    /** General-purpose view of the pool for non-agent work (workflow steps), at NORMAL priority. */
+    public ExecutorService asExecutorService() {
+        return pool;
+    }
+
+    /** Queue depth, admission rejections, deadline sheds and queue wait times. */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        long runs = started.get();
+        metrics.put("queue_depth", (long) pool.getQueue().size());
+        metrics.put("queue_capacity", (long) queueCapacity);
+        metrics.put("active", (long) pool.getActiveCount());
+        metrics.put("submitted", submitted.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("shed", shed.get());
+        metrics.put("avg_wait_ms", runs > 0 ? totalWaitMs.get() / runs : 0);
+        metrics.put("max_wait_ms", maxWaitMs.get());
+        return metrics;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    public void shutdownNow() {
+        pool.shutdownNow();
+    }
+
+    private int compare(Runnable a, Runnable b) {
+        Prioritized pa = (Prioritized) a;
+        Prioritized pb = (Prioritized) b;
+        int byPriority = pa.priority().compareTo(pb.priority());
+        return byPriority != 0 ? byPriority : Long.compare(pa.sequence(), pb.sequence());
+    }
+
+    private interface Prioritized {
+        Priority priority();
+        long sequence();
+    }
+
+    private final class AgentTask<T> extends FutureTask<T> implements Prioritized {
+        private final Priority priority;
+        private final long sequence = AgentExecutor.this.sequence.incrementAndGet();
+        private final long enqueuedAt = System.currentTimeMillis();
+        private final Function<AgentResponse, T> onRejected;
+        private final BlockingQueue<Future<T>> completions;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile Semaphore bulkhead;
+        private volatile boolean running = false;
+
+        AgentTask(Callable<T> call, Priority priority, Function<AgentResponse, T> onRejected,
+                  BlockingQueue<Future<T>> completions) {
+            super(call);
+            this.priority = priority;
+            this.onRejected = onRejected;
+            this.completions = completions;
+        }
+
+        @Override public Priority priority() { return priority; }
+        @Override public long sequence() { return sequence; }
+
+        void reject(String reason) {
+            set(onRejected.apply(AgentResponse.rejected(reason)));
+        }
+
+        @Override
+        public void run() {
+            running = true;
+            try {
+                if (isDone()) return;
+                long waited = System.currentTimeMillis() - enqueuedAt;
+                started.incrementAndGet();
+                totalWaitMs.addAndGet(waited);
+                maxWaitMs.accumulateAndGet(waited, Math::max);
+                if (waited > queueDeadlineMs) {
+                    // Shed: the caller has most likely given up already
+                    shed.incrementAndGet();
+                    reject("Queued " + waited + "ms, past the " + queueDeadlineMs + "ms deadline");
+                    return;
+                }
+                super.run();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            // A cancelled call that is still running holds its slot until run() returns
+            if (!running) {
+                release();
+                pool.withdraw(this);
+            }
+            if (completions != null) completions.add(this);
+        }
+
+        private void release() {
+            Semaphore slot = bulkhead;
+            if (slot != null && released.compareAndSet(false, true)) slot.release();
+        }
+    }
+
+    private static final class PrioritizedRunnable implements Runnable, Prioritized {
+        private final Runnable delegate;
+        private final long sequence;
+
+        PrioritizedRunnable(Runnable delegate, long sequence) {
+            this.delegate = delegate;
+            this.sequence = sequence;
+        }
+
+        @Override public void run() { delegate.run(); }
+        @Override public Priority priority() { return Priority.NORMAL; }
+        @Override public long sequence() { return sequence; }
+    }
+
+    /**
+     * Fixed pool over a priority queue that refuses work beyond
+     * {@code queueCapacity}. A queue slot is taken on admission and given back
+     * when a worker picks the task up, it is withdrawn, or execution fails.
+     */
+    private final class PriorityPool extends ThreadPoolExecutor {
+        PriorityPool(int threads, PriorityBlockingQueue<Runnable> queue) {
+            super(threads, threads, 0L, TimeUnit.MILLISECONDS, queue);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!(command instanceof Prioritized)) {
+                command = new PrioritizedRunnable(command, sequence.incrementAndGet());
+            }
+            // PriorityBlockingQueue is unbounded; enforce the capacity atomically here
+            if (!queueSlots.tryAcquire()) {
+                throw new RejectedExecutionException("Agent queue is full");
+            }
+            try {
+                super.execute(command);
+            } catch (RejectedExecutionException e) {
+                queueSlots.release();
+                throw e;
+            }
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            queueSlots.release();
+            super.beforeExecute(thread, task);
+        }
+
+        /** Drops a still-queued task so it stops counting toward capacity. */
+        void withdraw(Runnable task) {
+            if (remove(task)) queueSlots.release();
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.jomra.ai.agents;
 import java.util.Map;
 
 public class AgentInput {
+    /** The user's own words, when {@link #getText()} carries added context such as recalled memories. */
+    public static final String PARAM_ORIGINAL_QUERY = "original_query";
+
     private final String text;
     private final InputType type;
     private final Map<String, Object> parameters;
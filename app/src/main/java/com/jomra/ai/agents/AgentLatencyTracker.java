@@ -0,0 +1,94 @@
+package com.jomra.ai.agents;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BOLT: Streaming latency histogram per agent, fed by every orchestrated call.
+ *
+ * HDR-style log-linear buckets: exact below 32ms, then 16 sub-buckets per
+ * power of two (at most ~6% relative error) up to {@link #MAX_TRACKABLE_MS}.
+ * Counts are halved every {@link #DECAY_INTERVAL} samples so percentiles
+ * follow the device's current behavior. Percentiles are reported only once
+ * {@link #MIN_SAMPLES} calls were seen.
+ */
+public class AgentLatencyTracker {
+    public static final int MIN_SAMPLES = 20;
+    private static final long MAX_TRACKABLE_MS = 10 * 60 * 1000;
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = bucketOf(MAX_TRACKABLE_MS) + 1;
+    private static final int DECAY_INTERVAL = 256;
+
+    private static final class Histogram {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        long sinceDecay = 0;
+    }
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String agentId, long latencyMs) {
+        Histogram histogram = histograms.computeIfAbsent(agentId, k -> new Histogram());
+        int bucket = bucketOf(Math.max(0, Math.min(MAX_TRACKABLE_MS, latencyMs)));
+        synchronized (histogram) {
+            histogram.counts[bucket]++;
+            histogram.total++;
+            if (++histogram.sinceDecay >= DECAY_INTERVAL) {
+                histogram.total = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    histogram.counts[i] >>= 1;
+                    histogram.total += histogram.counts[i];
+                }
+                histogram.sinceDecay = 0;
+            }
+        }
+    }
+
+    /** Upper bound of the bucket holding {@code quantile} (0..1), or -1 with too few samples. */
+    public long percentile(String agentId, double quantile) {
+        Histogram histogram = histograms.get(agentId);
+        if (histogram == null) return -1;
+        synchronized (histogram) {
+            if (histogram.total < MIN_SAMPLES) return -1;
+            long target = Math.max(1, (long) Math.ceil(quantile * histogram.total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram.counts[i];
+                if (seen >= target) return bucketUpperBound(i);
+            }
+            return MAX_TRACKABLE_MS;
+        }
+    }
+
+    /** Measured median for {@code agent}, or its static estimate until enough calls were seen. */
+    public long estimateLatencyMs(Agent agent) {
+        long median = percentile(agent.getId(), 0.5);
+        return median >= 0 ? median : agent.getEstimatedLatencyMs();
+    }
+
+    public long getSampleCount(String agentId) {
+        Histogram histogram = histograms.get(agentId);
+        if (histogram == null) return 0;
+        synchronized (histogram) {
+            return histogram.total;
+        }
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        int sub = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return LINEAR_BUCKETS + (msb - 5) * SUB_BUCKETS + sub;
+    }
+
+    private static long bucketUpperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) return bucket;
+        int msb = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 5;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        int shift = msb - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
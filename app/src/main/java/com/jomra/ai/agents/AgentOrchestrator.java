@@ -1,26 +1,57 @@
 package com.jomra.ai.agents;
 
 import android.util.Log;
+import com.jomra.ai.agents.workflow.Workflow;
+import com.jomra.ai.agents.workflow.WorkflowExecutor;
+import com.jomra.ai.agents.workflow.WorkflowNode;
+import com.jomra.ai.agents.workflow.WorkflowResult;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class AgentOrchestrator {
     private static final String TAG = "AgentOrchestrator";
     private static final long DEFAULT_TIMEOUT_MS = 30000;
+    private static final long MIN_TIMEOUT_MS = 1000;
+    private static final int POOL_THREADS = 3;
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int MAX_IN_FLIGHT_PER_AGENT = 2;
+    private static final long QUEUE_DEADLINE_MS = 3000;
+    private static final long TIMEOUT_P99_FACTOR = 3;
+    private static final float DEFAULT_ENSEMBLE_CONFIDENCE = 0.9f;
+    private static final int DEFAULT_ENSEMBLE_CONSENSUS = 2;
+    private static final long DEFAULT_ENSEMBLE_DEADLINE_MS = 15000;
+    private static final double HEDGE_QUANTILE = 0.95;
+    private static final double HEDGE_BUDGET = 0.05; // at most 5% extra agent calls
+    private static final double HEDGE_BURST = 5;
 
     private final Map<String, Agent> agents;
-    private final ExecutorService executor;
+    private final AgentExecutor executor;
     private final AgentSelector selector;
+    private final AgentLatencyTracker latencyTracker = new AgentLatencyTracker();
+    private volatile ResponseCache responseCache; // null: no caching
+    private final WorkflowExecutor workflowExecutor;
+    private volatile float ensembleConfidenceThreshold = DEFAULT_ENSEMBLE_CONFIDENCE;
+    private volatile int ensembleConsensus = DEFAULT_ENSEMBLE_CONSENSUS;
+    private volatile long ensembleDeadlineMs = DEFAULT_ENSEMBLE_DEADLINE_MS;
+    private double hedgeTokens = 0; // guarded by latencyTracker
+    private final AtomicLong singleRequests = new AtomicLong();
+    private final AtomicLong hedgesLaunched = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong hedgesSkipped = new AtomicLong();
 
     public AgentOrchestrator() {
         this.agents = new ConcurrentHashMap<>();
-        this.executor = Executors.newFixedThreadPool(3);
-        this.selector = new AgentSelector();
+        this.executor = new AgentExecutor(POOL_THREADS, QUEUE_CAPACITY, MAX_IN_FLIGHT_PER_AGENT, QUEUE_DEADLINE_MS);
+        this.selector = new AgentSelector(latencyTracker);
+        this.workflowExecutor = new WorkflowExecutor(executor);
     }
 
     public void registerAgent(Agent agent) {
         if (agent.initialize()) {
             agents.put(agent.getId(), agent);
+            selector.register(agent);
             Log.i(TAG, "Registered agent: " + agent.getName());
         } else {
             Log.e(TAG, "Failed to initialize agent: " + agent.getName());
@@ -32,101 +63,298 @@ public class AgentOrchestrator {
     }
 
     public AgentResponse processSingle(AgentContext context, String userInput) {
+        return processSingle(context, userInput, ResponseSink.NONE);
+    }
+
+    /** {@link #processSingle} forwarding the selected agent's progress to {@code sink}. */
+    public AgentResponse processSingle(AgentContext context, String userInput, ResponseSink sink) {
+        ResponseCache cache = responseCache;
+        String cacheMode = cacheMode(context, "single");
+        if (cache != null) {
+            AgentResponse cached = cache.get(cacheMode, userInput);
+            if (cached != null) return cached;
+        }
         AgentInput input = new AgentInput(userInput,
             AgentInput.InputType.TEXT, Collections.emptyMap());
-        Agent selectedAgent = selector.selectAgent(input, agents.values());
+        Agent selectedAgent = selector.selectAgent(input);
         if (selectedAgent == null) {
             return AgentResponse.error("No suitable agent found");
         }
         Log.i(TAG, "Selected agent: " + selectedAgent.getName());
-        return executeWithTimeout(selectedAgent, context, input);
+        AgentResponse response = executeHedged(selectedAgent, context, input, sink);
+        if (cache != null) cache.put(cacheMode, userInput, Collections.singletonList(selectedAgent.getId()), response);
+        return response;
+    }
+
+    /**
+     * BOLT: Runs {@code primary} and, if it has not answered by its observed
+     * p95, a hedge on the next-best capable agent. The first successful answer
+     * wins and the other call is cancelled. Hedges draw from a token bucket
+     * refilled by {@link #HEDGE_BUDGET} per request, bounding the extra load.
+     */
+    private AgentResponse executeHedged(Agent primary, AgentContext context, AgentInput input, ResponseSink sink) {
+        long requests = singleRequests.incrementAndGet();
+        synchronized (latencyTracker) {
+            hedgeTokens = Math.min(HEDGE_BURST, hedgeTokens + HEDGE_BUDGET);
+        }
+        long hedgeDelay = latencyTracker.percentile(primary.getId(), HEDGE_QUANTILE);
+        long timeout = timeoutFor(primary);
+        if (hedgeDelay < 0 || hedgeDelay >= timeout) return executeWithTimeout(primary, context, input, sink);
+
+        long deadline = System.currentTimeMillis() + timeout;
+        // Only one of the racing calls may stream, or the UI would interleave them
+        AtomicReference<Agent> streaming = new AtomicReference<>();
+        BlockingQueue<Future<AgentResponse>> completions = new LinkedBlockingQueue<>();
+        Map<Future<AgentResponse>, Agent> calls = new HashMap<>();
+        Map<Future<AgentResponse>, AtomicLong> startTimes = new HashMap<>();
+        AtomicLong primaryStart = new AtomicLong();
+        Future<AgentResponse> primaryCall = executor.submit(primary, AgentExecutor.Priority.INTERACTIVE,
+            timedCall(primary, context, input, exclusiveSink(sink, streaming, primary), primaryStart), completions);
+        calls.put(primaryCall, primary);
+        startTimes.put(primaryCall, primaryStart);
+        AgentResponse lastFailure = null;
+        try {
+            Future<AgentResponse> done = completions.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            // A primary shed by admission control is hedged at once
+            if (done == null || done.get().getStatus() == AgentResponse.ResponseStatus.REJECTED) {
+                Agent hedge = selector.selectHedge(input, primary);
+                if (hedge != null && takeHedgeToken()) {
+                    hedgesLaunched.incrementAndGet();
+                    Log.i(TAG, "Hedging " + primary.getName() + " after " + hedgeDelay + "ms with " + hedge.getName());
+                    AtomicLong hedgeStart = new AtomicLong();
+                    Future<AgentResponse> hedgeCall = executor.submit(hedge, AgentExecutor.Priority.NORMAL,
+                        timedCall(hedge, context, input, exclusiveSink(sink, streaming, hedge), hedgeStart), completions);
+                    calls.put(hedgeCall, hedge);
+                    startTimes.put(hedgeCall, hedgeStart);
+                } else {
+                    hedgesSkipped.incrementAndGet();
+                }
+            }
+            int pending = calls.size();
+            while (pending > 0) {
+                if (done == null) {
+                    done = completions.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                    if (done == null) break;
+                }
+                pending--;
+                AgentResponse response = done.get();
+                if (response.isSuccess()) {
+                    if (calls.get(done) != primary) hedgesWon.incrementAndGet();
+                    return response;
+                }
+                lastFailure = response;
+                done = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return AgentResponse.error("Interrupted");
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Execution error", e);
+            return AgentResponse.error("Execution failed: " + e.getCause());
+        } finally {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<Future<AgentResponse>, Agent> call : calls.entrySet()) {
+                long start = startTimes.get(call.getKey()).get();
+                // Censored sample for a loser that was running: it took at least this long.
+                // Dropping it would bias the tail, and with it hedge delays and timeouts, downward
+                if (call.getKey().cancel(true) && start > 0) {
+                    latencyTracker.record(call.getValue().getId(), now - start);
+                }
+            }
+            if (requests % 100 == 0) Log.i(TAG, "Hedge metrics: " + getHedgeMetrics());
+        }
+        if (lastFailure != null) return lastFailure;
+        Log.e(TAG, "Agent timeout: " + primary.getName());
+        if (primaryStart.get() == 0) latencyTracker.record(primary.getId(), timeout); // never started
+        return AgentResponse.timeout();
     }
 
+    /** Forwards to {@code sink} only while {@code agent} is the first call that emitted anything. */
+    private static ResponseSink exclusiveSink(ResponseSink sink, AtomicReference<Agent> owner, Agent agent) {
+        if (sink == ResponseSink.NONE) return sink;
+        return new ResponseSink() {
+            private boolean owns() {
+                return owner.compareAndSet(null, agent) || owner.get() == agent;
+            }
+            @Override public void onPartialText(String delta) { if (owns()) sink.onPartialText(delta); }
+            @Override public void onReasoningStep(String step) { if (owns()) sink.onReasoningStep(step); }
+            @Override public void onToolEvent(String toolName, String event) { if (owns()) sink.onToolEvent(toolName, event); }
+        };
+    }
+
+    private boolean takeHedgeToken() {
+        synchronized (latencyTracker) {
+            if (hedgeTokens < 1) return false;
+            hedgeTokens -= 1;
+            return true;
+        }
+    }
+
+    /** Single-agent requests, hedges launched, hedges that answered first, and hedges skipped for budget. */
+    public Map<String, Long> getHedgeMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("requests", singleRequests.get());
+        metrics.put("hedges_launched", hedgesLaunched.get());
+        metrics.put("hedges_won", hedgesWon.get());
+        metrics.put("hedges_skipped", hedgesSkipped.get());
+        return metrics;
+    }
+
+    /**
+     * BOLT: Runs every agent in parallel and consumes answers in completion
+     * order. Returns as soon as one answer reaches the confidence threshold or
+     * enough agents agree, or when the global deadline passes; agents still
+     * running are cancelled.
+     */
     public AgentResponse processEnsemble(AgentContext context, String userInput) {
         AgentInput input = new AgentInput(userInput,
             AgentInput.InputType.TEXT, Collections.emptyMap());
+        BlockingQueue<Future<AgentResponse>> completions = new LinkedBlockingQueue<>();
         List<Future<AgentResponse>> futures = new ArrayList<>();
         for (Agent agent : agents.values()) {
-            Future<AgentResponse> future = executor.submit(() -> {
-                try {
-                    return agent.process(context, input);
-                } catch (Exception e) {
-                    Log.e(TAG, "Agent error: " + agent.getName(), e);
-                    return AgentResponse.error(e.getMessage());
-                }
-            });
-            futures.add(future);
+            futures.add(executor.submit(agent, AgentExecutor.Priority.BACKGROUND,
+                timedCall(agent, context, input, ResponseSink.NONE), completions));
         }
+
+        long deadline = System.currentTimeMillis() + ensembleDeadlineMs;
         List<AgentResponse> responses = new ArrayList<>();
-        for (Future<AgentResponse> future : futures) {
-            try {
-                AgentResponse response = future.get(15, TimeUnit.SECONDS);
-                if (response.isSuccess()) {
-                    responses.add(response);
+        Map<String, Integer> votes = new HashMap<>();
+        boolean sufficient = false;
+        try {
+            for (int received = 0; received < futures.size() && !sufficient; received++) {
+                Future<AgentResponse> done = completions.poll(
+                    deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    Log.w(TAG, "Ensemble deadline reached with " + responses.size() + " responses");
+                    break;
                 }
-            } catch (TimeoutException e) {
-                future.cancel(true);
-                Log.w(TAG, "Agent timed out");
-            } catch (Exception e) {
-                Log.e(TAG, "Error getting agent response", e);
+                AgentResponse response = done.get();
+                if (response == null || !response.isSuccess()) continue;
+                responses.add(response);
+                String answer = response.getText() != null ? response.getText().trim().toLowerCase() : "";
+                sufficient = response.getConfidence() >= ensembleConfidenceThreshold
+                    || votes.merge(answer, 1, Integer::sum) >= ensembleConsensus;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error getting agent response", e);
         }
+
+        int cancelled = 0;
+        for (Future<AgentResponse> future : futures) {
+            if (future.cancel(true)) cancelled++;
+        }
+        if (cancelled > 0) Log.i(TAG, "Ensemble cancelled " + cancelled + " slower agents");
         return aggregateResponses(responses);
     }
 
+    /**
+     * Early-exit policy for {@link #processEnsemble}: stop at the first answer
+     * with at least {@code confidence}, or once {@code consensus} agents gave the
+     * same answer, and never wait longer than {@code deadlineMs} in total.
+     */
+    public void setEnsembleExitPolicy(float confidence, int consensus, long deadlineMs) {
+        this.ensembleConfidenceThreshold = confidence;
+        this.ensembleConsensus = Math.max(1, consensus);
+        this.ensembleDeadlineMs = deadlineMs;
+    }
+
+    /** Runs {@code agentOrder} as a linear {@link Workflow}; each agent gets the previous text and metadata. */
     public AgentResponse processPipeline(AgentContext context,
                                         String userInput,
                                         String[] agentOrder) {
-        // BOLT: Initial input allocation
-        AgentInput input = new AgentInput(userInput,
-            AgentInput.InputType.TEXT, Collections.emptyMap());
-        AgentResponse currentResponse = null;
+        return processPipeline(context, userInput, agentOrder, ResponseSink.NONE);
+    }
 
-        for (String agentId : agentOrder) {
+    /** {@link #processPipeline} forwarding every stage's progress to {@code sink}. */
+    public AgentResponse processPipeline(AgentContext context,
+                                        String userInput,
+                                        String[] agentOrder,
+                                        ResponseSink sink) {
+        ResponseCache cache = responseCache;
+        String cacheMode = cacheMode(context, "pipeline:" + String.join(",", agentOrder));
+        if (cache != null) {
+            AgentResponse cached = cache.get(cacheMode, userInput);
+            if (cached != null) return cached;
+        }
+        Workflow.Builder builder = new Workflow.Builder().input(WorkflowNode.TEXT_IN);
+        Map<String, String> nodeAgents = new HashMap<>();
+        String previous = Workflow.INPUT;
+        for (int i = 0; i < agentOrder.length; i++) {
+            String agentId = agentOrder[i];
             Agent agent = agents.get(agentId);
             if (agent == null) {
                 Log.w(TAG, "Agent not found in pipeline: " + agentId);
                 continue;
             }
-
-            // BOLT: Reuse input if response text is identical to current input text
-            if (currentResponse != null && currentResponse.isSuccess()) {
-                String nextText = currentResponse.getText();
-                if (nextText == null || !nextText.equals(input.getText())) {
-                    input = new AgentInput(nextText,
-                        AgentInput.InputType.TEXT, currentResponse.getMetadata());
-                }
+            // An agent may appear more than once in the order
+            String nodeId = nodeAgents.containsKey(agentId) ? agentId + "#" + i : agentId;
+            nodeAgents.put(nodeId, agentId);
+            builder.node(WorkflowNode.agent(nodeId, agent, timeoutFor(agent), sink));
+            if (previous.equals(Workflow.INPUT)) {
+                builder.connect(Workflow.INPUT, WorkflowNode.TEXT_IN.getName(), nodeId, WorkflowNode.TEXT_IN.getName());
+            } else {
+                builder.chain(previous, nodeId);
             }
+            previous = nodeId;
+        }
+        if (previous.equals(Workflow.INPUT)) return AgentResponse.error("Pipeline failed");
 
-            currentResponse = executeWithTimeout(agent, context, input);
-            if (!currentResponse.isSuccess()) {
-                Log.w(TAG, "Pipeline stopped at agent: " + agent.getName());
-                break;
-            }
+        Map<String, Object> inputs = new HashMap<>();
+        inputs.put(WorkflowNode.TEXT_IN.getName(), userInput);
+        WorkflowResult result = processWorkflow(context, builder.build(), inputs);
+        for (Map.Entry<String, Long> entry : result.getNodeDurationsMs().entrySet()) {
+            latencyTracker.record(nodeAgents.get(entry.getKey()), entry.getValue());
         }
-        return currentResponse != null ? currentResponse :
-            AgentResponse.error("Pipeline failed");
+        if (!result.isSuccess()) Log.w(TAG, "Pipeline stopped at agent: " + result.getFailedNode());
+        AgentResponse response = result.toResponse();
+        if (cache != null) cache.put(cacheMode, userInput, nodeAgents.values(), response);
+        return response;
+    }
+
+    /** Installs a cache consulted by {@link #processSingle} and {@link #processPipeline}; null disables it. */
+    public void setResponseCache(ResponseCache cache) {
+        this.responseCache = cache;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /** Training runs must never be answered from (or fill) the cache of normal runs. */
+    private static String cacheMode(AgentContext context, String mode) {
+        return context != null && context.isTraining() ? mode + "/training" : mode;
+    }
+
+    /**
+     * Executes {@code workflow} on the orchestrator pool, running independent
+     * nodes in parallel. {@code inputs} are keyed by the workflow's input ports.
+     */
+    public WorkflowResult processWorkflow(AgentContext context, Workflow workflow, Map<String, Object> inputs) {
+        WorkflowResult result = workflowExecutor.execute(workflow, context, inputs);
+        Log.i(TAG, "Workflow finished in " + result.getElapsedMs() + "ms, node times " + result.getNodeDurationsMs());
+        return result;
+    }
+
+    public Agent getAgent(String agentId) {
+        return agents.get(agentId);
     }
 
     private AgentResponse executeWithTimeout(Agent agent,
                                             AgentContext context,
-                                            AgentInput input) {
-        Future<AgentResponse> future = executor.submit(() -> {
-            try {
-                return agent.process(context, input);
-            } catch (AgentException e) {
-                Log.e(TAG, "Agent exception: " + agent.getName(), e);
-                return AgentResponse.error("Agent error: " + e.getMessage());
-            }
-        });
+                                            AgentInput input,
+                                            ResponseSink sink) {
+        Future<AgentResponse> future = executor.submit(agent, AgentExecutor.Priority.INTERACTIVE,
+            timedCall(agent, context, input, sink), null);
+        long timeout = timeoutFor(agent);
         try {
-            long timeout = agent.getEstimatedLatencyMs() * 3;
-            timeout = Math.max(timeout, 5000);
-            timeout = Math.min(timeout, DEFAULT_TIMEOUT_MS);
             return future.get(timeout, TimeUnit.MILLISECONDS);
         } catch (TimeoutException e) {
             future.cancel(true);
             Log.e(TAG, "Agent timeout: " + agent.getName());
+            // Censored sample: keeps timeouts growing on a device that got slower
+            latencyTracker.record(agent.getId(), timeout);
             return AgentResponse.timeout();
         } catch (Exception e) {
             Log.e(TAG, "Execution error", e);
@@ -134,6 +362,48 @@ public class AgentOrchestrator {
         }
     }
 
+    /** Calls {@code agent} and records its latency unless the call was cancelled. */
+    private Callable<AgentResponse> timedCall(Agent agent, AgentContext context, AgentInput input,
+                                              ResponseSink sink) {
+        return timedCall(agent, context, input, sink, new AtomicLong());
+    }
+
+    /** As above; {@code startedAt} receives the start time once the call leaves the queue. */
+    private Callable<AgentResponse> timedCall(Agent agent, AgentContext context, AgentInput input,
+                                              ResponseSink sink, AtomicLong startedAt) {
+        return () -> {
+            long start = System.currentTimeMillis();
+            startedAt.set(start);
+            AgentResponse response;
+            try {
+                response = agent.processStreaming(context, input, sink);
+            } catch (AgentException | RuntimeException e) {
+                Log.e(TAG, "Agent exception: " + agent.getName(), e);
+                response = AgentResponse.error("Agent error: " + e.getMessage());
+            }
+            if (!Thread.currentThread().isInterrupted()) {
+                latencyTracker.record(agent.getId(), System.currentTimeMillis() - start);
+            }
+            return response;
+        };
+    }
+
+    /**
+     * Observed p99 times {@link #TIMEOUT_P99_FACTOR}, floored at {@link #MIN_TIMEOUT_MS};
+     * the static estimate only covers the first calls to an agent.
+     */
+    private long timeoutFor(Agent agent) {
+        long p99 = latencyTracker.percentile(agent.getId(), 0.99);
+        long timeout = p99 >= 0
+            ? Math.max(p99 * TIMEOUT_P99_FACTOR, MIN_TIMEOUT_MS)
+            : Math.max(agent.getEstimatedLatencyMs() * 3, 5000);
+        return Math.min(timeout, DEFAULT_TIMEOUT_MS);
+    }
+
+    public AgentLatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
     private AgentResponse aggregateResponses(List<AgentResponse> responses) {
         if (responses.isEmpty()) {
             return AgentResponse.error("No successful responses");
@@ -167,6 +437,11 @@ public class AgentOrchestrator {
             .build();
     }
 
+    /** Admission metrics of the agent pool: queue depth, rejections, sheds and wait times. */
+    public Map<String, Long> getQueueMetrics() {
+        return executor.getMetrics();
+    }
+
     public Map<String, HealthStatus> getAgentHealth() {
         Map<String, HealthStatus> health = new HashMap<>();
         for (Map.Entry<String, Agent> entry : agents.entrySet()) {
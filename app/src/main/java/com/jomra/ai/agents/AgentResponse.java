@@ -32,7 +32,7 @@ public class AgentResponse {
     }
 
     public enum ResponseStatus {
-        SUCCESS, TIMEOUT, ERROR, FALLBACK, INSUFFICIENT_CONFIDENCE
+        SUCCESS, TIMEOUT, ERROR, FALLBACK, INSUFFICIENT_CONFIDENCE, REJECTED
     }
 
     public static class Builder {
@@ -94,6 +94,15 @@ public class AgentResponse {
             .build();
     }
 
+    /** Load shed before the agent ran; safe to retry later. */
+    public static AgentResponse rejected(String reason) {
+        return new Builder()
+            .text("Too many requests right now, please try again")
+            .error(reason)
+            .status(ResponseStatus.REJECTED)
+            .build();
+    }
+
     public static AgentResponse timeout() {
         return new Builder()
             .status(ResponseStatus.TIMEOUT)
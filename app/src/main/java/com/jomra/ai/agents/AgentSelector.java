@@ -1,73 +1,157 @@
 package com.jomra.ai.agents;
 
+import com.jomra.ai.agents.routing.IntentMatcher;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class AgentSelector {
-    public Agent selectAgent(AgentInput input, Collection<Agent> agents) {
-        String text = input.getText().toLowerCase();
-        AgentCapability targetCapability;
-
-        if (text.contains("calculate") || text.contains("math")) {
-            targetCapability = AgentCapability.TOOL_USAGE;
-        } else if (text.contains("learn") || text.contains("remember")) {
-            targetCapability = AgentCapability.REINFORCEMENT_LEARNING;
-        } else if (text.contains("search") || text.contains("find")) {
-            targetCapability = AgentCapability.TOOL_USAGE;
-        } else if (text.contains("github") || text.contains("repo") || text.contains("code")) {
-            targetCapability = AgentCapability.TOOL_USAGE; // GitHub Connector
-        } else if (text.contains("supabase") || text.contains("db") || text.contains("database")) {
-            targetCapability = AgentCapability.TOOL_USAGE; // Supabase Connector
-        } else if (text.contains("vercel") || text.contains("deploy")) {
-            targetCapability = AgentCapability.TOOL_USAGE; // Vercel Connector
-        } else {
-            targetCapability = AgentCapability.QUESTION_ANSWERING;
+    // BOLT: Declarative routing table, compiled once; earlier rules win
+    private static final IntentMatcher<AgentCapability> INTENTS = new IntentMatcher.Builder<AgentCapability>()
+        .rule(AgentCapability.TOOL_USAGE, "calculate", "math")
+        .rule(AgentCapability.REINFORCEMENT_LEARNING, "learn", "remember")
+        .rule(AgentCapability.TOOL_USAGE, "search", "find")
+        .rule(AgentCapability.TOOL_USAGE, "github", "repo", "code") // GitHub Connector
+        .rule(AgentCapability.TOOL_USAGE, "supabase", "db", "database") // Supabase Connector
+        .rule(AgentCapability.TOOL_USAGE, "vercel", "deploy") // Vercel Connector
+        .build();
+
+    private final AgentLatencyTracker latencyTracker; // null: rank by static estimates
+    // BOLT: Capability -> agents, maintained on registration instead of scanning capability arrays per call
+    private final Map<AgentCapability, List<Agent>> byCapability = new EnumMap<>(AgentCapability.class);
+    private final List<Agent> registered = new CopyOnWriteArrayList<>();
+
+    public AgentSelector() {
+        this(null);
+    }
+
+    public AgentSelector(AgentLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+        // Every key exists up front, so lookups never race with structural changes
+        for (AgentCapability capability : AgentCapability.values()) {
+            byCapability.put(capability, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    /** Adds {@code agent} to the index, replacing a registered agent with the same id. */
+    public void register(Agent agent) {
+        unregister(agent.getId());
+        registered.add(agent);
+        for (AgentCapability capability : agent.getCapabilities()) {
+            List<Agent> capable = byCapability.get(capability);
+            if (!capable.contains(agent)) capable.add(agent);
+        }
+    }
+
+    public void unregister(String agentId) {
+        registered.removeIf(agent -> agent.getId().equals(agentId));
+        for (List<Agent> capable : byCapability.values()) {
+            capable.removeIf(agent -> agent.getId().equals(agentId));
+        }
+    }
+
+    /** Registered agents having {@code capability}, in registration order. */
+    public List<Agent> getAgents(AgentCapability capability) {
+        return byCapability.get(capability);
+    }
+
+    /**
+     * Best agent with the capability {@code input} needs. When none has it,
+     * the first registered agent answers, as findStrategicAgent always did
+     * with the first agent of the collection; null only with no agents at all.
+     */
+    public Agent selectAgent(AgentInput input) {
+        Agent best = findStrategicAgent(byCapability.get(targetCapability(input)));
+        return best != null ? best : (registered.isEmpty() ? null : registered.get(0));
+    }
+
+    /**
+     * Next-best agent with the capability {@code input} needs that runs
+     * independently of {@code primary}: it shares no delegate with it and
+     * uses no tools, whose side effects must not run twice. Null when no
+     * such agent exists.
+     */
+    public Agent selectHedge(AgentInput input, Agent primary) {
+        Set<Agent> primaryAgents = withDelegates(primary);
+        List<Agent> candidates = new ArrayList<>();
+        for (Agent candidate : byCapability.get(targetCapability(input))) {
+            if (isIndependent(withDelegates(candidate), primaryAgents)) candidates.add(candidate);
+        }
+        return findStrategicAgent(candidates);
+    }
+
+    private static boolean isIndependent(Set<Agent> candidate, Set<Agent> primary) {
+        for (Agent agent : candidate) {
+            if (primary.contains(agent)) return false;
+            for (AgentCapability capability : agent.getCapabilities()) {
+                if (capability == AgentCapability.TOOL_USAGE) return false;
+            }
         }
+        return true;
+    }
+
+    /** {@code agent} and everything it calls, transitively, by identity. */
+    private static Set<Agent> withDelegates(Agent agent) {
+        Set<Agent> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Agent> pending = new ArrayDeque<>();
+        pending.add(agent);
+        while (!pending.isEmpty()) {
+            Agent next = pending.poll();
+            if (seen.add(next)) pending.addAll(next.getDelegates());
+        }
+        return seen;
+    }
 
-        return findStrategicAgent(agents, targetCapability);
+    private static AgentCapability targetCapability(AgentInput input) {
+        IntentMatcher.Match<AgentCapability> match = INTENTS.match(input.getText());
+        return match != null ? match.intent : AgentCapability.QUESTION_ANSWERING;
     }
 
     /**
      * SUN-TZU: Strategic selection prioritizing HEALTHY agents.
      * "The wise warrior avoids the battle." - By picking healthy agents, we avoid failures.
      */
-    private Agent findStrategicAgent(Collection<Agent> agents, AgentCapability capability) {
+    private Agent findStrategicAgent(Collection<Agent> agents) {
         Agent bestAgent = null;
 
         for (Agent agent : agents) {
-            if (hasCapability(agent, capability)) {
-                HealthStatus.Status currentStatus = agent.getHealthStatus().getStatus();
+            HealthStatus.Status currentStatus = agent.getHealthStatus().getStatus();
 
-                if (bestAgent == null) {
-                    bestAgent = agent;
-                    continue;
-                }
+            if (bestAgent == null) {
+                bestAgent = agent;
+                continue;
+            }
 
-                HealthStatus.Status bestStatus = bestAgent.getHealthStatus().getStatus();
+            HealthStatus.Status bestStatus = bestAgent.getHealthStatus().getStatus();
 
-                // Prioritize Healthy over anything else
-                if (currentStatus == HealthStatus.Status.HEALTHY && bestStatus != HealthStatus.Status.HEALTHY) {
-                    bestAgent = agent;
-                }
-                // If both are Healthy, pick the one with lower latency
-                else if (currentStatus == HealthStatus.Status.HEALTHY && bestStatus == HealthStatus.Status.HEALTHY) {
-                    if (agent.getEstimatedLatencyMs() < bestAgent.getEstimatedLatencyMs()) {
-                        bestAgent = agent;
-                    }
-                }
-                // If current is DEGRADED but best is UNHEALTHY
-                else if (currentStatus == HealthStatus.Status.DEGRADED && bestStatus == HealthStatus.Status.UNHEALTHY) {
+            // Prioritize Healthy over anything else
+            if (currentStatus == HealthStatus.Status.HEALTHY && bestStatus != HealthStatus.Status.HEALTHY) {
+                bestAgent = agent;
+            }
+            // If both are Healthy, pick the one with lower latency
+            else if (currentStatus == HealthStatus.Status.HEALTHY && bestStatus == HealthStatus.Status.HEALTHY) {
+                if (latencyOf(agent) < latencyOf(bestAgent)) {
                     bestAgent = agent;
                 }
             }
+            // If current is DEGRADED but best is UNHEALTHY
+            else if (currentStatus == HealthStatus.Status.DEGRADED && bestStatus == HealthStatus.Status.UNHEALTHY) {
+                bestAgent = agent;
+            }
         }
 
-        return bestAgent != null ? bestAgent : (agents.isEmpty() ? null : agents.iterator().next());
+        return bestAgent;
     }
 
-    private boolean hasCapability(Agent agent, AgentCapability capability) {
-        for (AgentCapability cap : agent.getCapabilities()) {
-            if (cap == capability) return true;
-        }
-        return false;
+    private long latencyOf(Agent agent) {
+        return latencyTracker != null ? latencyTracker.estimateLatencyMs(agent) : agent.getEstimatedLatencyMs();
     }
 }
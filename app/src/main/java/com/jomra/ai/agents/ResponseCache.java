@@ -0,0 +1,217 @@
+package com.jomra.ai.agents;
+
+import com.jomra.ai.memory.EmbeddingEngine;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BOLT: Two-tier cache of successful agent responses in front of the orchestrator.
+ *
+ * The exact tier is an LRU map keyed by mode and normalized text. On a miss,
+ * the semantic tier compares the query embedding against cached queries of
+ * the same mode and serves one above {@link #DEFAULT_SIMILARITY_THRESHOLD} as
+ * long as both contain the same digits and symbols, so "calculate 2+2" never
+ * answers "calculate 2*3". Entries expire after a per-agent TTL, and the least
+ * recently used ones are evicted once the estimated size exceeds the byte budget.
+ *
+ * Agents can be excluded entirely with {@link #setCacheable}; a single
+ * response opts out with the {@link #NO_CACHE} metadata flag.
+ */
+public class ResponseCache {
+    /** Response metadata key; {@code true} keeps that response out of the cache. */
+    public static final String NO_CACHE = "no_cache";
+    public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+    public static final long DEFAULT_TTL_MS = 10 * 60 * 1000;
+    private static final float DEFAULT_SIMILARITY_THRESHOLD = 0.95f;
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final class Entry {
+        final String key;
+        final String mode;
+        final float[] embedding;
+        final String literals;
+        final AgentResponse response;
+        final long expiresAt;
+        final long bytes;
+
+        Entry(String key, String mode, float[] embedding, String literals,
+              AgentResponse response, long expiresAt, long bytes) {
+            this.key = key;
+            this.mode = mode;
+            this.embedding = embedding;
+            this.literals = literals;
+            this.response = response;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private final EmbeddingEngine embeddingEngine; // null disables the semantic tier
+    private final long maxBytes;
+    private final float similarityThreshold;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Boolean> cacheable = new ConcurrentHashMap<>();
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+    private long bytes = 0;
+    private long exactHits = 0;
+    private long semanticHits = 0;
+    private long misses = 0;
+
+    public ResponseCache(EmbeddingEngine embeddingEngine) {
+        this(embeddingEngine, DEFAULT_MAX_BYTES, DEFAULT_SIMILARITY_THRESHOLD);
+    }
+
+    public ResponseCache(EmbeddingEngine embeddingEngine, long maxBytes, float similarityThreshold) {
+        this.embeddingEngine = embeddingEngine;
+        this.maxBytes = maxBytes;
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    /** Agents are cacheable unless turned off here, e.g. stateful or side-effecting ones. */
+    public void setCacheable(String agentId, boolean value) {
+        cacheable.put(agentId, value);
+    }
+
+    public boolean isCacheable(String agentId) {
+        return cacheable.getOrDefault(agentId, true);
+    }
+
+    public void setTtl(String agentId, long ttlMs) {
+        ttls.put(agentId, ttlMs);
+    }
+
+    public AgentResponse get(String mode, String text) {
+        String normalized = normalize(text);
+        String key = mode + '\u0000' + normalized;
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    exactHits++;
+                    return entry.response;
+                }
+                remove(entry);
+            }
+            if (embeddingEngine == null || entries.isEmpty()) {
+                misses++;
+                return null;
+            }
+        }
+
+        // Encoded outside the lock; the engine has its own cache
+        float[] query = embeddingEngine.encode(normalized);
+        String literals = literals(normalized);
+        synchronized (this) {
+            if (query == null) { // Encoder failed; exact hits only
+                misses++;
+                return null;
+            }
+            Entry best = null;
+            float bestSimilarity = similarityThreshold;
+            for (Entry candidate : entries.values()) {
+                if (candidate.expiresAt <= now || !candidate.mode.equals(mode)
+                        || !candidate.literals.equals(literals)) continue;
+                float similarity = dot(query, candidate.embedding);
+                if (similarity >= bestSimilarity) {
+                    best = candidate;
+                    bestSimilarity = similarity;
+                }
+            }
+            if (best == null) {
+                misses++;
+                return null;
+            }
+            entries.get(best.key); // refresh LRU position
+            semanticHits++;
+            return best.response;
+        }
+    }
+
+    /** Stores {@code response} if it succeeded and every agent that produced it is cacheable. */
+    public void put(String mode, String text, Collection<String> agentIds, AgentResponse response) {
+        if (response == null || !response.isSuccess()) return;
+        Map<String, Object> metadata = response.getMetadata();
+        if (metadata != null && Boolean.TRUE.equals(metadata.get(NO_CACHE))) return;
+        long ttl = DEFAULT_TTL_MS;
+        for (String agentId : agentIds) {
+            if (!isCacheable(agentId)) return;
+            ttl = Math.min(ttl, ttls.getOrDefault(agentId, DEFAULT_TTL_MS));
+        }
+
+        String normalized = normalize(text);
+        String key = mode + '\u0000' + normalized;
+        float[] embedding = embeddingEngine != null ? embeddingEngine.encode(normalized) : null;
+        if (embedding == null) embedding = new float[0]; // Served by exact hits only
+        String responseText = response.getText() != null ? response.getText() : "";
+        long size = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + responseText.length()) + 4L * embedding.length;
+        if (size > maxBytes) return;
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(key, mode, embedding, literals(normalized), response, now + ttl, size);
+
+        synchronized (this) {
+            Entry previous = entries.get(key);
+            if (previous != null) remove(previous);
+            entries.put(key, entry);
+            bytes += size;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Entry victim = eldest.next();
+                eldest.remove();
+                bytes -= victim.bytes;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("entries", (long) entries.size());
+        metrics.put("bytes", bytes);
+        metrics.put("exact_hits", exactHits);
+        metrics.put("semantic_hits", semanticHits);
+        metrics.put("misses", misses);
+        return metrics;
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        bytes -= entry.bytes;
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        return text.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Digits and symbols of {@code text}, without letters, whitespace and
+     * sentence punctuation ("2+2" for "what is 2+2?"), so neither the
+     * numbers nor the operator can differ between semantic matches.
+     */
+    static String literals(String text) {
+        StringBuilder literals = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c) || Character.isWhitespace(c) || ".,!?'\"".indexOf(c) >= 0) continue;
+            literals.append(c);
+        }
+        return literals.toString();
+    }
+
+    /** Embeddings from {@link EmbeddingEngine} are L2-normalized, so the dot product is the cosine. */
+    private static float dot(float[] a, float[] b) {
+        if (a.length != b.length) return 0;
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+}
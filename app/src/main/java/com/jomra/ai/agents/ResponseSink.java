@@ -0,0 +1,19 @@
+package com.jomra.ai.agents;
+
+/**
+ * Receives intermediate output of {@link Agent#processStreaming} before the
+ * final response is returned. Callbacks arrive on agent threads and must be
+ * cheap; implementations that touch UI should post and coalesce.
+ */
+public interface ResponseSink {
+    /** Discards everything; what {@link Agent#process} callers effectively use. */
+    ResponseSink NONE = new ResponseSink() {};
+
+    /** Next chunk of answer text, appended to what was sent before. */
+    default void onPartialText(String delta) {}
+
+    default void onReasoningStep(String step) {}
+
+    /** {@code event} is a short status such as "started" or "finished". */
+    default void onToolEvent(String toolName, String event) {}
+}
@@ -0,0 +1,126 @@
+package com.jomra.ai.agents;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BOLT: Coalesces identical concurrent calls to the wrapped agent.
+ *
+ * Calls with the same input text, type and parameters under an equivalent
+ * context share one in-flight invocation: the first caller runs it, later
+ * ones wait for its result. Wrap agents whose instance is shared between
+ * callers (e.g. the QA agent used directly and by ChainOfThoughtAgent), so
+ * a single interpreter never runs the same inference twice at once.
+ */
+public class SingleFlightAgent implements Agent {
+    private final Agent delegate;
+    private final Map<Key, CompletableFuture<AgentResponse>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private static final class Key {
+        final String text;
+        final AgentInput.InputType type;
+        final Map<String, Object> parameters;
+        final int contextFingerprint;
+
+        Key(AgentContext context, AgentInput input) {
+            this.text = input.getText();
+            this.type = input.getType();
+            this.parameters = input.getParameters();
+            this.contextFingerprint = fingerprint(context);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return contextFingerprint == other.contextFingerprint && type == other.type
+                && Objects.equals(text, other.text) && Objects.equals(parameters, other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, type, parameters, contextFingerprint);
+        }
+
+        /** Same mode, conversation and app state; not a deep comparison of their contents. */
+        private static int fingerprint(AgentContext context) {
+            if (context == null) return 0;
+            return Objects.hash(context.isTraining(),
+                System.identityHashCode(context.getHistory()),
+                System.identityHashCode(context.getAppState()),
+                context.getMetadata());
+        }
+    }
+
+    public SingleFlightAgent(Agent delegate) {
+        this.delegate = delegate;
+    }
+
+    public Agent getDelegate() { return delegate; }
+
+    /** Calls answered by joining another caller's in-flight invocation. */
+    public long getCoalescedCount() { return coalesced.get(); }
+
+    @Override
+    public AgentResponse process(AgentContext context, AgentInput input) throws AgentException {
+        return processStreaming(context, input, ResponseSink.NONE);
+    }
+
+    /** The leading caller streams; callers that join receive the final text once. */
+    @Override
+    public AgentResponse processStreaming(AgentContext context, AgentInput input,
+                                          ResponseSink sink) throws AgentException {
+        Key key = new Key(context, input);
+        CompletableFuture<AgentResponse> mine = new CompletableFuture<>();
+        CompletableFuture<AgentResponse> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            AgentResponse response = await(leader);
+            if (response != null && response.isSuccess()) sink.onPartialText(response.getText());
+            return response;
+        }
+        try {
+            AgentResponse response = delegate.processStreaming(context, input, sink);
+            mine.complete(response);
+            return response;
+        } catch (Throwable t) {
+            // Errors too (OOM, native failures), or joined callers would wait forever
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private AgentResponse await(CompletableFuture<AgentResponse> leader) throws AgentException {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            // Only this caller gave up; the leader keeps running for the others
+            Thread.currentThread().interrupt();
+            throw new AgentException(AgentException.ErrorType.TIMEOUT, "Interrupted while waiting for shared call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AgentException) throw (AgentException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new AgentException(AgentException.ErrorType.INFERENCE_ERROR, "Shared call failed", cause);
+        }
+    }
+
+    @Override public String getId() { return delegate.getId(); }
+    @Override public String getName() { return delegate.getName(); }
+    @Override public AgentCapability[] getCapabilities() { return delegate.getCapabilities(); }
+    @Override public boolean initialize() { return delegate.initialize(); }
+    @Override public void shutdown() { delegate.shutdown(); }
+    @Override public HealthStatus getHealthStatus() { return delegate.getHealthStatus(); }
+    @Override public long getEstimatedLatencyMs() { return delegate.getEstimatedLatencyMs(); }
+    @Override public Collection<Agent> getDelegates() { return Collections.singletonList(delegate); }
+}
@@ -2,11 +2,26 @@ package com.jomra.ai.agents;
 
 import android.content.Context;
 import android.util.Log;
+import com.jomra.ai.agents.routing.IntentMatcher;
 import com.jomra.ai.tools.*;
 import java.util.*;
 
 public class ToolAgent implements Agent {
     private static final String TAG = "ToolAgent";
+    // Side effects or live state: a cached answer would be wrong
+    private static final Set<String> UNCACHEABLE_TOOLS = new HashSet<>(Arrays.asList(
+        "notification", "system_info", "list_apps", "github_connector", "supabase_connector", "vercel_connector"));
+    // BOLT: Tool routing compiled once; earlier rules win, strip words are cut from the tool argument
+    private static final IntentMatcher<String> TOOL_INTENTS = new IntentMatcher.Builder<String>()
+        .rule("calculator", "calculate", "math").strip("calculate", "math")
+        .rule("system_info", "system", "device")
+        .rule("web_search", "search", "find").strip("search", "find")
+        .rule("notification", "notify", "remind").strip("notify", "remind", "me")
+        .rule("list_apps", "list apps", "show apps")
+        .rule("github_connector", "github", "repo")
+        .rule("supabase_connector", "supabase", "db")
+        .rule("vercel_connector", "vercel", "deploy")
+        .build();
     private final Context context;
     private final ToolRegistry toolRegistry;
     private boolean initialized = false;
@@ -25,6 +40,11 @@ public class ToolAgent implements Agent {
     @Override public boolean initialize() { initialized = true; return true; }
 
     @Override public AgentResponse process(AgentContext context, AgentInput input) throws AgentException {
+        return processStreaming(context, input, ResponseSink.NONE);
+    }
+
+    @Override public AgentResponse processStreaming(AgentContext context, AgentInput input,
+                                                    ResponseSink sink) throws AgentException {
         if (!initialized) throw new AgentException(AgentException.ErrorType.CONFIGURATION_ERROR, "Not initialized");
 
         String query = input.getText();
@@ -32,37 +52,24 @@ public class ToolAgent implements Agent {
             return AgentResponse.error("Empty input");
         }
 
-        String lowerQuery = query.toLowerCase();
-        String toolName = null;
+        IntentMatcher.Match<String> match = TOOL_INTENTS.match(query);
+        String toolName = match != null ? match.intent : null;
         Map<String, Object> params = new HashMap<>();
 
-        if (lowerQuery.contains("calculate") || lowerQuery.contains("math")) {
-            toolName = "calculator";
-            String expr = query.replaceAll("(?i)calculate|math", "").trim();
-            params.put("expression", expr);
-        } else if (lowerQuery.contains("system") || lowerQuery.contains("device")) {
-            toolName = "system_info";
-        } else if (lowerQuery.contains("search") || lowerQuery.contains("find")) {
-            toolName = "web_search";
-            String searchQuery = query.replaceAll("(?i)search|find", "").trim();
-            params.put("query", searchQuery);
-        } else if (lowerQuery.contains("notify") || lowerQuery.contains("remind")) {
-            toolName = "notification";
+        if ("calculator".equals(toolName)) {
+            params.put("expression", match.remainder());
+        } else if ("web_search".equals(toolName)) {
+            params.put("query", match.remainder());
+        } else if ("notification".equals(toolName)) {
             params.put("title", "AI Assistant");
-            String msg = query.replaceAll("(?i)notify|remind|me", "").trim();
-            params.put("message", msg);
-        } else if (lowerQuery.contains("list apps") || lowerQuery.contains("show apps")) {
-            toolName = "list_apps";
-        } else if (lowerQuery.contains("github") || lowerQuery.contains("repo")) {
-            toolName = "github_connector";
+            params.put("message", match.remainder());
+        } else if ("github_connector".equals(toolName)) {
             params.put("action", "list_repos");
             params.put("owner", "jomra-ai"); // Default example
-        } else if (lowerQuery.contains("supabase") || lowerQuery.contains("db")) {
-            toolName = "supabase_connector";
+        } else if ("supabase_connector".equals(toolName)) {
             params.put("operation", "select");
             params.put("query", "users");
-        } else if (lowerQuery.contains("vercel") || lowerQuery.contains("deploy")) {
-            toolName = "vercel_connector";
+        } else if ("vercel_connector".equals(toolName)) {
             params.put("action", "status");
             params.put("projectId", "default-project");
         }
@@ -78,16 +85,25 @@ public class ToolAgent implements Agent {
         if (tool == null) return AgentResponse.error("Tool not found: " + toolName);
 
         try {
+            sink.onToolEvent(toolName, "started");
             ToolResult result = tool.execute(params);
+            sink.onToolEvent(toolName, result.isSuccess() ? "finished" : "failed");
+            if (result.isSuccess()) sink.onPartialText(result.getResultText());
+            Map<String, Object> metadata = result.getData();
+            if (UNCACHEABLE_TOOLS.contains(toolName)) {
+                metadata = metadata != null ? new HashMap<>(metadata) : new HashMap<>();
+                metadata.put(ResponseCache.NO_CACHE, true);
+            }
 
             return new AgentResponse.Builder()
                 .status(result.isSuccess() ? AgentResponse.ResponseStatus.SUCCESS : AgentResponse.ResponseStatus.ERROR)
                 .text(result.getResultText())
                 .confidence(1.0f)
-                .metadata(result.getData())
+                .metadata(metadata)
                 .build();
         } catch (Exception e) {
             Log.e(TAG, "Tool execution failed", e);
+            sink.onToolEvent(toolName, "failed");
             return AgentResponse.error("Tool execution failed: " + e.getMessage());
         }
     }
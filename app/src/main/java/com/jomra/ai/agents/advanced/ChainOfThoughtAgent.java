@@ -8,8 +8,11 @@ import com.jomra.ai.tools.*;
 import com.jomra.ai.memory.MemorySystem;
 import com.jomra.ai.memory.MemoryItem;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class ChainOfThoughtAgent implements Agent {
+    private static final String TAG = "ChainOfThoughtAgent";
+
     private final Agent qaAgent;
     private final ToolRegistry toolRegistry;
     private final MemorySystem memory;
@@ -37,22 +40,50 @@ public class ChainOfThoughtAgent implements Agent {
 
     @Override
     public AgentResponse process(AgentContext context, AgentInput input) throws AgentException {
+        return processStreaming(context, input, ResponseSink.NONE);
+    }
+
+    /** Emits each reasoning step as it is reached, then the final answer. */
+    @Override
+    public AgentResponse processStreaming(AgentContext context, AgentInput input,
+                                          ResponseSink sink) throws AgentException {
         String query = input.getText();
         List<String> reasoningSteps = new ArrayList<>();
 
         // Simple heuristic for reasoning
-        if (query.contains("+") || query.contains("-") || query.contains("*") || query.contains("/")) {
-            reasoningSteps.add("Identify mathematical operation in the query.");
-            reasoningSteps.add("Extract operands and operator.");
-            reasoningSteps.add("Calculate the result using the Calculator tool.");
+        boolean math = query.contains("+") || query.contains("-") || query.contains("*") || query.contains("/");
+        // BOLT: Recall runs on the memory read pool while the QA agent answers. It is keyed on the
+        // user's own words, not on context an orchestrator appended, so a recall the orchestrator
+        // already ran for this turn is served from the recall cache.
+        Map<String, Object> parameters = input.getParameters();
+        Object original = parameters != null ? parameters.get(AgentInput.PARAM_ORIGINAL_QUERY) : null;
+        String recallQuery = original instanceof String ? (String) original : query;
+        CompletableFuture<List<MemoryItem>> recallFuture = math ? null : memory.recallAsync(recallQuery, 2);
+
+        if (math) {
+            addStep(reasoningSteps, sink, "Identify mathematical operation in the query.");
+            addStep(reasoningSteps, sink, "Extract operands and operator.");
         } else {
-            reasoningSteps.add("Analyze query intent.");
-            List<MemoryItem> recalled = memory.recall(query, 2);
+            addStep(reasoningSteps, sink, "Analyze query intent.");
+        }
+
+        AgentResponse baseResponse;
+        try {
+            baseResponse = qaAgent.process(context, input);
+        } catch (AgentException e) {
+            if (recallFuture != null) recallFuture.cancel(true);
+            throw e;
+        }
+
+        if (math) {
+            addStep(reasoningSteps, sink, "Calculate the result using the Calculator tool.");
+        } else {
+            List<MemoryItem> recalled = awaitRecall(recallFuture);
             if (!recalled.isEmpty()) {
-                reasoningSteps.add("Found " + recalled.size() + " relevant context items in memory.");
+                addStep(reasoningSteps, sink, "Found " + recalled.size() + " relevant context items in memory.");
             }
-            reasoningSteps.add("Retrieve relevant information from memory.");
-            reasoningSteps.add("Synthesize a response based on available data.");
+            addStep(reasoningSteps, sink, "Retrieve relevant information from memory.");
+            addStep(reasoningSteps, sink, "Synthesize a response based on available data.");
         }
 
         StringBuilder sb = new StringBuilder("Thought process:\n");
@@ -60,8 +91,8 @@ public class ChainOfThoughtAgent implements Agent {
             sb.append(i + 1).append(". ").append(reasoningSteps.get(i)).append("\n");
         }
 
-        AgentResponse baseResponse = qaAgent.process(context, input);
         sb.append("\nFinal Answer: ").append(baseResponse.getText());
+        sink.onPartialText(baseResponse.getText());
 
         return new AgentResponse.Builder()
                 .status(AgentResponse.ResponseStatus.SUCCESS)
@@ -70,7 +101,27 @@ public class ChainOfThoughtAgent implements Agent {
                 .build();
     }
 
+    private static void addStep(List<String> steps, ResponseSink sink, String step) {
+        steps.add(step);
+        sink.onReasoningStep(step);
+    }
+
+    /** Waits as long as recall takes; only a failed recall continues without memories. */
+    private List<MemoryItem> awaitRecall(CompletableFuture<List<MemoryItem>> recallFuture) {
+        try {
+            return recallFuture.get();
+        } catch (InterruptedException e) {
+            recallFuture.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            recallFuture.cancel(true);
+            Log.w(TAG, "Memory recall unavailable", e);
+        }
+        return Collections.emptyList();
+    }
+
     @Override public void shutdown() { initialized = false; }
     @Override public HealthStatus getHealthStatus() { return initialized ? HealthStatus.healthy() : HealthStatus.unhealthy("Not init"); }
     @Override public long getEstimatedLatencyMs() { return 1500; }
+    @Override public Collection<Agent> getDelegates() { return Collections.singletonList(qaAgent); }
 }
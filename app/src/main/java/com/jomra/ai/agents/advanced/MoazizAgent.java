@@ -4,6 +4,7 @@ import android.content.Context;
 import com.jomra.ai.agents.*;
 import com.jomra.ai.moaziz.MoazizOrchestrator;
 import com.jomra.ai.memory.MemorySystem;
+import java.util.Collection;
 import java.util.Collections;
 
 public class MoazizAgent implements Agent {
@@ -39,7 +40,14 @@ public class MoazizAgent implements Agent {
         return orchestrator.process(context, input.getText());
     }
 
+    @Override
+    public AgentResponse processStreaming(AgentContext context, AgentInput input,
+                                          ResponseSink sink) throws AgentException {
+        return orchestrator.process(context, input.getText(), sink);
+    }
+
     @Override public void shutdown() { initialized = false; }
     @Override public HealthStatus getHealthStatus() { return HealthStatus.healthy(); }
     @Override public long getEstimatedLatencyMs() { return 2000; }
+    @Override public Collection<Agent> getDelegates() { return orchestrator.getRegisteredAgents(); }
 }
@@ -0,0 +1,233 @@
+package com.jomra.ai.agents.routing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BOLT: Intent routing compiled once from a declarative rule table.
+ *
+ * All rule keywords go into one Aho-Corasick automaton, flattened into a
+ * dense transition table, so {@link #match} reads the input exactly once,
+ * case-insensitively, however many intents are declared. Keywords match as
+ * substrings, like {@code String.contains}; when several rules match, the
+ * one declared first wins. Strip words are removed only as whole words.
+ */
+public class IntentMatcher<T> {
+    private static final int ASCII = 128;
+
+    /** Winning rule of a {@link #match}, plus its input with the rule's strip words removed. */
+    public static final class Match<T> {
+        public final T intent;
+        private final String text;
+        private final List<int[]> stripSpans;
+
+        Match(T intent, String text, List<int[]> stripSpans) {
+            this.intent = intent;
+            this.text = text;
+            this.stripSpans = stripSpans;
+        }
+
+        /** The input without the matched rule's strip words, trimmed. */
+        public String remainder() {
+            if (stripSpans.isEmpty()) return text.trim();
+            StringBuilder sb = new StringBuilder(text.length());
+            int from = 0;
+            for (int[] span : stripSpans) {
+                if (span[0] < from) continue; // overlaps a span already removed
+                sb.append(text, from, span[0]);
+                from = span[1];
+            }
+            sb.append(text, from, text.length());
+            return sb.toString().trim();
+        }
+    }
+
+    public static class Builder<T> {
+        private final List<T> intents = new ArrayList<>();
+        private final List<String[]> keywords = new ArrayList<>();
+        private final List<String[]> stripWords = new ArrayList<>();
+
+        /** Declares a rule; earlier rules take precedence. Keywords are matched lowercase. */
+        public Builder<T> rule(T intent, String... ruleKeywords) {
+            intents.add(intent);
+            keywords.add(ruleKeywords);
+            stripWords.add(new String[0]);
+            return this;
+        }
+
+        /** Words removed from {@link Match#remainder()} when the last declared rule wins. */
+        public Builder<T> strip(String... words) {
+            stripWords.set(stripWords.size() - 1, words);
+            return this;
+        }
+
+        public IntentMatcher<T> build() {
+            return new IntentMatcher<>(this);
+        }
+    }
+
+    private final List<T> intents;
+    // Pattern p belongs to rule patternRule[p]; it is a trigger keyword or a strip word
+    private final int[] patternRule;
+    private final boolean[] patternStrips;
+    private final int[] patternLength;
+    private final int[] alphabet = new int[ASCII]; // char -> column, -1 if no pattern uses it
+    private final Map<Character, Integer> wideAlphabet = new HashMap<>();
+    private final int columns;
+    private final int[] delta;     // state * columns + column -> state
+    private final int[][] outputs; // patterns ending at each state, via suffix links too
+
+    private IntentMatcher(Builder<T> builder) {
+        this.intents = new ArrayList<>(builder.intents);
+        List<String> patterns = new ArrayList<>();
+        List<Integer> rules = new ArrayList<>();
+        List<Boolean> strips = new ArrayList<>();
+        for (int rule = 0; rule < intents.size(); rule++) {
+            for (String keyword : builder.keywords.get(rule)) {
+                patterns.add(keyword.toLowerCase());
+                rules.add(rule);
+                strips.add(false);
+            }
+            for (String word : builder.stripWords.get(rule)) {
+                patterns.add(word.toLowerCase());
+                rules.add(rule);
+                strips.add(true);
+            }
+        }
+        int count = patterns.size();
+        patternRule = new int[count];
+        patternStrips = new boolean[count];
+        patternLength = new int[count];
+        for (int p = 0; p < count; p++) {
+            patternRule[p] = rules.get(p);
+            patternStrips[p] = strips.get(p);
+            patternLength[p] = patterns.get(p).length();
+        }
+
+        Arrays.fill(alphabet, -1);
+        int nextColumn = 0;
+        for (String pattern : patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (column(c) < 0) {
+                    if (c < ASCII) alphabet[c] = nextColumn++;
+                    else wideAlphabet.put(c, nextColumn++);
+                }
+            }
+        }
+        columns = Math.max(1, nextColumn);
+
+        // Trie, with -1 for missing edges
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(newRow());
+        ends.add(new ArrayList<>());
+        for (int p = 0; p < count; p++) {
+            String pattern = patterns.get(p);
+            if (pattern.isEmpty()) continue;
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int col = column(pattern.charAt(i));
+                if (trie.get(state)[col] < 0) {
+                    trie.get(state)[col] = trie.size();
+                    trie.add(newRow());
+                    ends.add(new ArrayList<>());
+                }
+                state = trie.get(state)[col];
+            }
+            ends.get(state).add(p);
+        }
+
+        // Breadth-first failure links, folded into a complete transition table
+        int states = trie.size();
+        delta = new int[states * columns];
+        outputs = new int[states][];
+        int[] fail = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = toArray(ends.get(0));
+        for (int col = 0; col < columns; col++) {
+            int child = trie.get(0)[col];
+            delta[col] = child < 0 ? 0 : child;
+            if (child > 0) {
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> out = new ArrayList<>(ends.get(state));
+            for (int p : outputs[fail[state]]) out.add(p);
+            outputs[state] = toArray(out);
+            for (int col = 0; col < columns; col++) {
+                int child = trie.get(state)[col];
+                if (child < 0) {
+                    delta[state * columns + col] = delta[fail[state] * columns + col];
+                } else {
+                    delta[state * columns + col] = child;
+                    fail[child] = delta[fail[state] * columns + col];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /** Best rule matching {@code text}, or null if no keyword occurs. */
+    public Match<T> match(String text) {
+        if (text == null || intents.isEmpty()) return null;
+        int best = Integer.MAX_VALUE;
+        List<int[]> hits = null; // {pattern, start, end} of strip words
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int col = column(Character.toLowerCase(text.charAt(i)));
+            state = col < 0 ? 0 : delta[state * columns + col];
+            for (int p : outputs[state]) {
+                if (patternStrips[p]) {
+                    if (hits == null) hits = new ArrayList<>();
+                    hits.add(new int[]{p, i + 1 - patternLength[p], i + 1});
+                } else if (patternRule[p] < best) {
+                    best = patternRule[p];
+                }
+            }
+        }
+        if (best == Integer.MAX_VALUE) return null;
+
+        List<int[]> spans = new ArrayList<>();
+        if (hits != null) {
+            for (int[] hit : hits) {
+                if (patternRule[hit[0]] == best && isWholeWord(text, hit[1], hit[2])) {
+                    spans.add(new int[]{hit[1], hit[2]});
+                }
+            }
+            spans.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+        }
+        return new Match<>(intents.get(best), text, spans);
+    }
+
+    private int column(char c) {
+        if (c < ASCII) return alphabet[c];
+        Integer col = wideAlphabet.get(c);
+        return col != null ? col : -1;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[Math.max(1, columns)];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static boolean isWholeWord(String text, int start, int end) {
+        return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+            && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+        return array;
+    }
+}
@@ -0,0 +1,39 @@
+package com.jomra.ai.agents.workflow;
+
+/**
+ * Named, typed input or output of a {@link WorkflowNode}. Edges may only
+ * connect an output to an input whose type it is assignable to.
+ */
+public final class Port<T> {
+    private final String name;
+    private final Class<T> type;
+    private final boolean required;
+
+    private Port(String name, Class<T> type, boolean required) {
+        this.name = name;
+        this.type = type;
+        this.required = required;
+    }
+
+    /** An input the node cannot run without; the workflow must connect it. */
+    public static <T> Port<T> required(String name, Class<T> type) {
+        return new Port<>(name, type, true);
+    }
+
+    public static <T> Port<T> optional(String name, Class<T> type) {
+        return new Port<>(name, type, false);
+    }
+
+    public String getName() { return name; }
+    public Class<T> getType() { return type; }
+    public boolean isRequired() { return required; }
+
+    public boolean accepts(Object value) {
+        return value == null || type.isInstance(value);
+    }
+
+    @Override
+    public String toString() {
+        return name + ":" + type.getSimpleName();
+    }
+}
@@ -0,0 +1,178 @@
+package com.jomra.ai.agents.workflow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable DAG of {@link WorkflowNode}s. Edges carry one output port value to
+ * one input port; a node runs once all its upstream nodes finished. Values
+ * supplied at execution time come from the {@link #INPUT} pseudo-node.
+ */
+public class Workflow {
+    /** Source of the values passed to {@link WorkflowExecutor#execute}. */
+    public static final String INPUT = "$input";
+
+    /** Data dependency from {@code fromNode.fromPort} to {@code toNode.toPort}. */
+    public static final class Edge {
+        public final String fromNode;
+        public final String fromPort;
+        public final String toNode;
+        public final String toPort;
+
+        Edge(String fromNode, String fromPort, String toNode, String toPort) {
+            this.fromNode = fromNode;
+            this.fromPort = fromPort;
+            this.toNode = toNode;
+            this.toPort = toPort;
+        }
+    }
+
+    private final Map<String, WorkflowNode> nodes;
+    private final Map<String, Port<?>> inputs;
+    private final List<Edge> edges;
+    private final Map<String, List<Edge>> incoming = new HashMap<>();
+    private final Map<String, Set<String>> downstream = new HashMap<>();
+    private final Map<String, Integer> upstreamCounts = new HashMap<>();
+    private final String resultNode;
+
+    private Workflow(Builder builder) {
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(builder.nodes));
+        this.inputs = Collections.unmodifiableMap(new LinkedHashMap<>(builder.inputs));
+        this.edges = Collections.unmodifiableList(new ArrayList<>(builder.edges));
+        this.resultNode = builder.resultNode;
+        for (String id : nodes.keySet()) {
+            incoming.put(id, new ArrayList<>());
+            downstream.put(id, new HashSet<>());
+        }
+        for (Edge edge : edges) {
+            incoming.get(edge.toNode).add(edge);
+            if (!INPUT.equals(edge.fromNode)) downstream.get(edge.fromNode).add(edge.toNode);
+        }
+        for (String id : nodes.keySet()) {
+            Set<String> upstream = new HashSet<>();
+            for (Edge edge : incoming.get(id)) {
+                if (!INPUT.equals(edge.fromNode)) upstream.add(edge.fromNode);
+            }
+            upstreamCounts.put(id, upstream.size());
+        }
+    }
+
+    public Map<String, WorkflowNode> getNodes() { return nodes; }
+    public Map<String, Port<?>> getInputs() { return inputs; }
+    public List<Edge> getEdges() { return edges; }
+
+    /** Node whose outputs are the workflow's result; the last node added unless set. */
+    public String getResultNode() { return resultNode; }
+
+    List<Edge> incoming(String nodeId) { return incoming.get(nodeId); }
+    Set<String> downstream(String nodeId) { return downstream.get(nodeId); }
+    int upstreamCount(String nodeId) { return upstreamCounts.get(nodeId); }
+
+    public static class Builder {
+        private final Map<String, WorkflowNode> nodes = new LinkedHashMap<>();
+        private final Map<String, Port<?>> inputs = new LinkedHashMap<>();
+        private final List<Edge> edges = new ArrayList<>();
+        private String resultNode;
+
+        /** Declares a value the caller supplies, connectable as {@code (INPUT, name)}. */
+        public Builder input(Port<?> port) {
+            inputs.put(port.getName(), port);
+            return this;
+        }
+
+        public Builder node(WorkflowNode node) {
+            if (INPUT.equals(node.getId()) || nodes.containsKey(node.getId())) {
+                throw new IllegalArgumentException("Duplicate node id: " + node.getId());
+            }
+            nodes.put(node.getId(), node);
+            return this;
+        }
+
+        public Builder connect(String fromNode, String fromPort, String toNode, String toPort) {
+            edges.add(new Edge(fromNode, fromPort, toNode, toPort));
+            return this;
+        }
+
+        /** Connects every same-named output of {@code fromNode} to the inputs of {@code toNode}. */
+        public Builder chain(String fromNode, String toNode) {
+            WorkflowNode from = nodes.get(fromNode);
+            WorkflowNode to = nodes.get(toNode);
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("Unknown node in chain: " + fromNode + " -> " + toNode);
+            }
+            for (Port<?> input : to.getInputs()) {
+                if (from.findOutput(input.getName()) != null) {
+                    connect(fromNode, input.getName(), toNode, input.getName());
+                }
+            }
+            return this;
+        }
+
+        public Builder result(String nodeId) {
+            this.resultNode = nodeId;
+            return this;
+        }
+
+        /** Validates ports, types and acyclicity. */
+        public Workflow build() {
+            if (nodes.isEmpty()) throw new IllegalStateException("Workflow has no nodes");
+            if (resultNode == null) {
+                for (String id : nodes.keySet()) resultNode = id;
+            } else if (!nodes.containsKey(resultNode)) {
+                throw new IllegalStateException("Unknown result node: " + resultNode);
+            }
+
+            Set<String> connected = new HashSet<>();
+            for (Edge edge : edges) {
+                Port<?> from = INPUT.equals(edge.fromNode) ? inputs.get(edge.fromPort)
+                    : nodes.containsKey(edge.fromNode) ? nodes.get(edge.fromNode).findOutput(edge.fromPort) : null;
+                WorkflowNode target = nodes.get(edge.toNode);
+                Port<?> to = target != null ? target.findInput(edge.toPort) : null;
+                if (from == null || to == null) {
+                    throw new IllegalStateException("Unknown port in edge "
+                        + edge.fromNode + "." + edge.fromPort + " -> " + edge.toNode + "." + edge.toPort);
+                }
+                if (!to.getType().isAssignableFrom(from.getType())) {
+                    throw new IllegalStateException("Type mismatch: " + edge.fromNode + "." + from
+                        + " -> " + edge.toNode + "." + to);
+                }
+                if (!connected.add(edge.toNode + "." + edge.toPort)) {
+                    throw new IllegalStateException("Input connected twice: " + edge.toNode + "." + edge.toPort);
+                }
+            }
+            for (WorkflowNode node : nodes.values()) {
+                for (Port<?> port : node.getInputs()) {
+                    if (port.isRequired() && !connected.contains(node.getId() + "." + port.getName())) {
+                        throw new IllegalStateException("Required input not connected: " + node.getId() + "." + port);
+                    }
+                }
+            }
+
+            Workflow workflow = new Workflow(this);
+            // Kahn's algorithm; anything left unvisited sits on a cycle
+            Map<String, Integer> remaining = new HashMap<>(workflow.upstreamCounts);
+            Deque<String> ready = new ArrayDeque<>();
+            for (Map.Entry<String, Integer> entry : remaining.entrySet()) {
+                if (entry.getValue() == 0) ready.add(entry.getKey());
+            }
+            int visited = 0;
+            while (!ready.isEmpty()) {
+                String id = ready.poll();
+                visited++;
+                for (String next : workflow.downstream(id)) {
+                    if (remaining.merge(next, -1, Integer::sum) == 0) ready.add(next);
+                }
+            }
+            if (visited != nodes.size()) throw new IllegalStateException("Workflow contains a cycle");
+            return workflow;
+        }
+    }
+}
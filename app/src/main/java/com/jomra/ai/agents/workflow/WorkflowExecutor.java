@@ -0,0 +1,203 @@
+package com.jomra.ai.agents.workflow;
+
+import android.util.Log;
+import com.jomra.ai.agents.AgentContext;
+import com.jomra.ai.agents.AgentException;
+import com.jomra.ai.agents.AgentExecutor;
+import com.jomra.ai.agents.AgentResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BOLT: Runs a {@link Workflow} with every ready node in flight at once, so
+ * end-to-end latency follows the critical path instead of the sum of steps.
+ *
+ * The calling thread coordinates; node steps run on the supplied
+ * {@link AgentExecutor}. Agent nodes go through its admission control, so
+ * they share the per-agent bulkheads and queue deadline of single calls;
+ * a node that is not admitted fails with a REJECTED response. The first
+ * failure or node timeout cancels whatever is still running.
+ */
+public class WorkflowExecutor {
+    private static final String TAG = "WorkflowExecutor";
+
+    private final AgentExecutor executor;
+    private final AgentExecutor.Priority priority;
+
+    public WorkflowExecutor(AgentExecutor executor) {
+        this(executor, AgentExecutor.Priority.INTERACTIVE);
+    }
+
+    public WorkflowExecutor(AgentExecutor executor, AgentExecutor.Priority priority) {
+        this.executor = executor;
+        this.priority = priority;
+    }
+
+    /** Outcome of one node, produced on the worker thread. */
+    private static final class NodeRun {
+        final String nodeId;
+        final Map<String, Object> outputs;
+        final AgentResponse failure;
+        final long durationMs;
+
+        NodeRun(String nodeId, Map<String, Object> outputs, AgentResponse failure, long durationMs) {
+            this.nodeId = nodeId;
+            this.outputs = outputs;
+            this.failure = failure;
+            this.durationMs = durationMs;
+        }
+    }
+
+    public WorkflowResult execute(Workflow workflow, AgentContext context, Map<String, Object> inputs) {
+        long start = System.currentTimeMillis();
+        Map<String, Map<String, Object>> outputs = new HashMap<>();
+        outputs.put(Workflow.INPUT, inputs != null ? inputs : Collections.emptyMap());
+        Map<String, Long> durations = new HashMap<>();
+        Map<String, Integer> remaining = new HashMap<>();
+        Map<String, Future<NodeRun>> running = new HashMap<>();
+        Map<String, Long> deadlines = new HashMap<>();
+        BlockingQueue<Future<NodeRun>> completed = new LinkedBlockingQueue<>();
+        Completions completions = new Completions(completed,
+            new ExecutorCompletionService<>(executor.asExecutorService(), completed));
+
+        for (String id : workflow.getNodes().keySet()) {
+            remaining.put(id, workflow.upstreamCount(id));
+            if (workflow.upstreamCount(id) == 0) {
+                submit(workflow, id, context, outputs, completions, running, deadlines);
+            }
+        }
+
+        String failedNode = null;
+        AgentResponse failure = null;
+        try {
+            while (!running.isEmpty()) {
+                long now = System.currentTimeMillis();
+                String nextDeadline = null;
+                for (Map.Entry<String, Long> entry : deadlines.entrySet()) {
+                    if (nextDeadline == null || entry.getValue() < deadlines.get(nextDeadline)) nextDeadline = entry.getKey();
+                }
+                Future<NodeRun> done = completed.poll(Math.max(0, deadlines.get(nextDeadline) - now), TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    Log.e(TAG, "Workflow node timed out: " + nextDeadline);
+                    failedNode = nextDeadline;
+                    failure = AgentResponse.timeout();
+                    break;
+                }
+                if (done.isCancelled()) continue;
+                NodeRun run = done.get();
+                running.remove(run.nodeId);
+                deadlines.remove(run.nodeId);
+                // A node that was never admitted has no duration worth reporting
+                if (run.failure == null || run.failure.getStatus() != AgentResponse.ResponseStatus.REJECTED) {
+                    durations.put(run.nodeId, run.durationMs);
+                }
+                if (run.failure != null) {
+                    Log.w(TAG, "Workflow stopped at node: " + run.nodeId);
+                    failedNode = run.nodeId;
+                    failure = run.failure;
+                    break;
+                }
+                outputs.put(run.nodeId, run.outputs);
+                for (String next : workflow.downstream(run.nodeId)) {
+                    if (remaining.merge(next, -1, Integer::sum) == 0) {
+                        submit(workflow, next, context, outputs, completions, running, deadlines);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = AgentResponse.error("Workflow interrupted");
+        } catch (ExecutionException e) {
+            failure = AgentResponse.error("Workflow failed: " + e.getCause());
+        }
+        // Short-circuit: nothing downstream of a failure is worth finishing
+        for (Future<NodeRun> future : running.values()) future.cancel(true);
+
+        outputs.remove(Workflow.INPUT);
+        return new WorkflowResult(outputs, durations, workflow.getResultNode(),
+            failedNode, failure, System.currentTimeMillis() - start);
+    }
+
+    /** Agent and tool nodes complete into one queue; tool and custom nodes skip admission control. */
+    private static final class Completions {
+        final BlockingQueue<Future<NodeRun>> queue;
+        final CompletionService<NodeRun> plain;
+
+        Completions(BlockingQueue<Future<NodeRun>> queue, CompletionService<NodeRun> plain) {
+            this.queue = queue;
+            this.plain = plain;
+        }
+    }
+
+    private void submit(Workflow workflow, String nodeId, AgentContext context,
+                        Map<String, Map<String, Object>> outputs, Completions completions,
+                        Map<String, Future<NodeRun>> running, Map<String, Long> deadlines) {
+        WorkflowNode node = workflow.getNodes().get(nodeId);
+        // Gathered on the coordinating thread, which owns the outputs map
+        Map<String, Object> values = new HashMap<>();
+        for (Workflow.Edge edge : workflow.incoming(nodeId)) {
+            Object value = outputs.get(edge.fromNode).get(edge.fromPort);
+            if (value != null) values.put(edge.toPort, value);
+        }
+        deadlines.put(nodeId, System.currentTimeMillis() + node.getTimeoutMs());
+        Future<NodeRun> future;
+        if (node.getAgent() != null) {
+            future = executor.submit(node.getAgent(), priority, () -> run(node, context, values),
+                rejected -> new NodeRun(nodeId, null, rejected, 0), completions.queue);
+        } else {
+            try {
+                future = completions.plain.submit(() -> run(node, context, values));
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(
+                    new NodeRun(nodeId, null, AgentResponse.rejected("Agent queue is full"), 0));
+                completions.queue.add(future);
+            }
+        }
+        running.put(nodeId, future);
+    }
+
+    private NodeRun run(WorkflowNode node, AgentContext context, Map<String, Object> values) {
+        long start = System.currentTimeMillis();
+        for (Port<?> port : node.getInputs()) {
+            if (port.isRequired() && values.get(port.getName()) == null) {
+                return new NodeRun(node.getId(), null,
+                    AgentResponse.error("Missing input " + node.getId() + "." + port), 0);
+            }
+        }
+        try {
+            Map<String, Object> produced = node.getStep().run(context, values);
+            Map<String, Object> checked = new HashMap<>();
+            for (Port<?> port : node.getOutputs()) {
+                Object value = produced != null ? produced.get(port.getName()) : null;
+                if (!port.accepts(value)) {
+                    return new NodeRun(node.getId(), null, AgentResponse.error("Node " + node.getId()
+                        + " produced " + value.getClass().getSimpleName() + " for " + port),
+                        System.currentTimeMillis() - start);
+                }
+                if (value != null) checked.put(port.getName(), value);
+            }
+            return new NodeRun(node.getId(), checked, null, System.currentTimeMillis() - start);
+        } catch (WorkflowNode.NodeFailedException e) {
+            return new NodeRun(node.getId(), null, e.getResponse(), System.currentTimeMillis() - start);
+        } catch (AgentException e) {
+            Log.e(TAG, "Agent exception in node: " + node.getId(), e);
+            AgentResponse failure = e.getErrorType() == AgentException.ErrorType.TIMEOUT
+                ? AgentResponse.timeout() : AgentResponse.error("Agent error: " + e.getMessage());
+            return new NodeRun(node.getId(), null, failure, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            Log.e(TAG, "Node failed: " + node.getId(), e);
+            return new NodeRun(node.getId(), null, AgentResponse.error("Node " + node.getId()
+                + " failed: " + e.getMessage()), System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.jomra.ai.agents.workflow;
+
+import com.jomra.ai.agents.Agent;
+import com.jomra.ai.agents.AgentContext;
+import com.jomra.ai.agents.AgentException;
+import com.jomra.ai.agents.AgentInput;
+import com.jomra.ai.agents.AgentResponse;
+import com.jomra.ai.agents.ResponseSink;
+import com.jomra.ai.tools.Tool;
+import com.jomra.ai.tools.ToolResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One step of a {@link Workflow}: an agent, a tool or custom code, with
+ * declared input and output ports and its own timeout.
+ */
+public class WorkflowNode {
+    // Agent node ports
+    public static final Port<String> TEXT_IN = Port.required("text", String.class);
+    public static final Port<Map> METADATA_IN = Port.optional("metadata", Map.class);
+    public static final Port<String> CONTEXT_IN = Port.optional("context", String.class);
+    public static final Port<String> TEXT_OUT = Port.optional("text", String.class);
+    public static final Port<Float> CONFIDENCE_OUT = Port.optional("confidence", Float.class);
+    public static final Port<Map> METADATA_OUT = Port.optional("metadata", Map.class);
+    public static final Port<AgentResponse> RESPONSE_OUT = Port.optional("response", AgentResponse.class);
+    // Tool node ports
+    public static final Port<Map> PARAMS_IN = Port.optional("params", Map.class);
+    public static final Port<String> TOOL_TEXT_IN = Port.optional("text", String.class);
+    public static final Port<Map> DATA_OUT = Port.optional("data", Map.class);
+
+    /** Work done by a node; returns values keyed by output port name. */
+    public interface Step {
+        Map<String, Object> run(AgentContext context, Map<String, Object> inputs) throws Exception;
+    }
+
+    private final String id;
+    private final List<Port<?>> inputs;
+    private final List<Port<?>> outputs;
+    private final long timeoutMs;
+    private final Step step;
+    private final Agent agent; // admission-controlled by the executor; null for tool and custom nodes
+
+    public WorkflowNode(String id, List<Port<?>> inputs, List<Port<?>> outputs, long timeoutMs, Step step) {
+        this(id, inputs, outputs, timeoutMs, step, null);
+    }
+
+    private WorkflowNode(String id, List<Port<?>> inputs, List<Port<?>> outputs, long timeoutMs,
+                         Step step, Agent agent) {
+        this.id = id;
+        this.inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+        this.outputs = Collections.unmodifiableList(new ArrayList<>(outputs));
+        this.timeoutMs = timeoutMs;
+        this.step = step;
+        this.agent = agent;
+    }
+
+    /**
+     * Runs {@code agent} on the {@code text} input. Upstream {@code metadata}
+     * becomes the input parameters and {@code context} is added under that key.
+     * A response other than SUCCESS fails the node.
+     */
+    public static WorkflowNode agent(String id, Agent agent, long timeoutMs) {
+        return agent(id, agent, timeoutMs, ResponseSink.NONE);
+    }
+
+    /** As {@link #agent(String, Agent, long)}, streaming the agent's progress to {@code sink}. */
+    public static WorkflowNode agent(String id, Agent agent, long timeoutMs, ResponseSink sink) {
+        return new WorkflowNode(id,
+            Arrays.asList(TEXT_IN, METADATA_IN, CONTEXT_IN),
+            Arrays.asList(TEXT_OUT, CONFIDENCE_OUT, METADATA_OUT, RESPONSE_OUT),
+            timeoutMs,
+            (context, inputs) -> {
+                Map<String, Object> params = new HashMap<>();
+                Map<?, ?> metadata = (Map<?, ?>) inputs.get(METADATA_IN.getName());
+                if (metadata != null) {
+                    for (Map.Entry<?, ?> entry : metadata.entrySet()) params.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+                Object upstreamContext = inputs.get(CONTEXT_IN.getName());
+                if (upstreamContext != null) params.put(CONTEXT_IN.getName(), upstreamContext);
+                AgentInput input = new AgentInput((String) inputs.get(TEXT_IN.getName()),
+                    AgentInput.InputType.TEXT, params);
+
+                AgentResponse response = agent.processStreaming(context, input, sink);
+                if (response == null || !response.isSuccess()) {
+                    throw new NodeFailedException(response != null ? response
+                        : AgentResponse.error(agent.getName() + " returned no response"));
+                }
+                Map<String, Object> out = new HashMap<>();
+                out.put(TEXT_OUT.getName(), response.getText());
+                out.put(CONFIDENCE_OUT.getName(), response.getConfidence());
+                out.put(METADATA_OUT.getName(), response.getMetadata());
+                out.put(RESPONSE_OUT.getName(), response);
+                return out;
+            },
+            agent);
+    }
+
+    /**
+     * Executes {@code tool} with the {@code params} input; the {@code text}
+     * input, when connected, is passed as parameter {@code textParam}.
+     */
+    public static WorkflowNode tool(String id, Tool tool, String textParam, long timeoutMs) {
+        return new WorkflowNode(id,
+            Arrays.asList(PARAMS_IN, TOOL_TEXT_IN),
+            Arrays.asList(TEXT_OUT, DATA_OUT),
+            timeoutMs,
+            (context, inputs) -> {
+                Map<String, Object> params = new HashMap<>();
+                Map<?, ?> upstream = (Map<?, ?>) inputs.get(PARAMS_IN.getName());
+                if (upstream != null) {
+                    for (Map.Entry<?, ?> entry : upstream.entrySet()) params.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+                Object text = inputs.get(TOOL_TEXT_IN.getName());
+                if (text != null && textParam != null) params.put(textParam, text);
+
+                ToolResult result = tool.execute(params);
+                if (!result.isSuccess()) {
+                    throw new NodeFailedException(AgentResponse.error(
+                        "Tool " + tool.getName() + " failed: " + result.getErrorMessage()));
+                }
+                Map<String, Object> out = new HashMap<>();
+                out.put(TEXT_OUT.getName(), result.getResultText());
+                out.put(DATA_OUT.getName(), result.getData());
+                return out;
+            });
+    }
+
+    public String getId() { return id; }
+    public List<Port<?>> getInputs() { return inputs; }
+    public List<Port<?>> getOutputs() { return outputs; }
+    public long getTimeoutMs() { return timeoutMs; }
+    Step getStep() { return step; }
+    Agent getAgent() { return agent; }
+
+    Port<?> findInput(String name) {
+        for (Port<?> port : inputs) if (port.getName().equals(name)) return port;
+        return null;
+    }
+
+    Port<?> findOutput(String name) {
+        for (Port<?> port : outputs) if (port.getName().equals(name)) return port;
+        return null;
+    }
+
+    /** Thrown by a step to fail its node with a specific response. */
+    public static class NodeFailedException extends AgentException {
+        private final AgentResponse response;
+
+        public NodeFailedException(AgentResponse response) {
+            super(ErrorType.INFERENCE_ERROR, response.getErrorMessage() != null
+                ? response.getErrorMessage() : String.valueOf(response.getStatus()));
+            this.response = response;
+        }
+
+        public AgentResponse getResponse() { return response; }
+    }
+}
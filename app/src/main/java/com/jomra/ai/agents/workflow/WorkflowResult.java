@@ -0,0 +1,51 @@
+package com.jomra.ai.agents.workflow;
+
+import com.jomra.ai.agents.AgentResponse;
+import java.util.Collections;
+import java.util.Map;
+
+/** Outputs of every finished node, or the first failure that stopped the run. */
+public class WorkflowResult {
+    private final Map<String, Map<String, Object>> outputs;
+    private final Map<String, Long> nodeDurationsMs;
+    private final String resultNode;
+    private final String failedNode;
+    private final AgentResponse failure;
+    private final long elapsedMs;
+
+    WorkflowResult(Map<String, Map<String, Object>> outputs, Map<String, Long> nodeDurationsMs,
+                   String resultNode, String failedNode, AgentResponse failure, long elapsedMs) {
+        this.outputs = Collections.unmodifiableMap(outputs);
+        this.nodeDurationsMs = Collections.unmodifiableMap(nodeDurationsMs);
+        this.resultNode = resultNode;
+        this.failedNode = failedNode;
+        this.failure = failure;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public boolean isSuccess() { return failure == null; }
+    public String getFailedNode() { return failedNode; }
+    public long getElapsedMs() { return elapsedMs; }
+    public Map<String, Long> getNodeDurationsMs() { return nodeDurationsMs; }
+
+    public Map<String, Object> getOutputs(String nodeId) {
+        Map<String, Object> values = outputs.get(nodeId);
+        return values != null ? values : Collections.emptyMap();
+    }
+
+    public <T> T get(String nodeId, Port<T> port) {
+        return port.getType().cast(getOutputs(nodeId).get(port.getName()));
+    }
+
+    /**
+     * The failure when the run stopped early; otherwise the result node's
+     * agent response, or its text output wrapped as a success.
+     */
+    public AgentResponse toResponse() {
+        if (failure != null) return failure;
+        AgentResponse response = get(resultNode, WorkflowNode.RESPONSE_OUT);
+        if (response != null) return response;
+        String text = get(resultNode, WorkflowNode.TEXT_OUT);
+        return AgentResponse.success(text != null ? text : "", 1.0f);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jomra.ai.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Okapi BM25 over FTS4 {@code matchinfo(..., 'pcnalx')} blobs; FTS4 has no
+ * built-in ranking function, so scoring happens here on the matched rows only.
+ */
+public final class Bm25 {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Words nearly every memory contains; OR-ing them in would match the whole table
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "a", "about", "an", "and", "are", "as", "at", "be", "but", "by", "can", "could", "did",
+        "do", "does", "for", "from", "had", "has", "have", "how", "i", "if", "in", "is", "it",
+        "its", "me", "my", "of", "on", "or", "please", "so", "that", "the", "there", "this",
+        "to", "was", "we", "were", "what", "when", "where", "which", "who", "why", "will",
+        "with", "would", "you", "your"));
+
+    private Bm25() {}
+
+    /** Sums BM25 over every phrase and column; higher is better. */
+    public static float score(byte[] matchInfo) {
+        if (matchInfo == null || matchInfo.length < 12) return 0f;
+        // matchinfo() writes native-order unsigned 32-bit ints
+        ByteBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = info.getInt(0);
+        int columns = info.getInt(4);
+        int totalDocs = info.getInt(8);
+        int avgOffset = 3;
+        int lengthOffset = avgOffset + columns;
+        int hitsOffset = lengthOffset + columns;
+        if (matchInfo.length < (hitsOffset + 3 * phrases * columns) * 4) return 0f;
+
+        float score = 0f;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                int base = (hitsOffset + 3 * (c + p * columns)) * 4;
+                int termFrequency = info.getInt(base);
+                if (termFrequency == 0) continue;
+                int docsWithTerm = info.getInt(base + 8);
+                float avgLength = Math.max(1, info.getInt((avgOffset + c) * 4));
+                float docLength = info.getInt((lengthOffset + c) * 4);
+                double idf = Math.log(1.0 + (totalDocs - docsWithTerm + 0.5) / (docsWithTerm + 0.5));
+                score += (float) (idf * termFrequency * (K1 + 1)
+                        / (termFrequency + K1 * (1 - B + B * docLength / avgLength)));
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Turns free text into an FTS4 MATCH expression: each word that is not a
+     * stop word quoted (so operators and punctuation in user input are inert)
+     * and OR-ed together. Returns null when nothing searchable is left.
+     */
+    public static String toMatchQuery(String text) {
+        if (text == null) return null;
+        StringBuilder match = new StringBuilder();
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}_]+")) {
+            if (word.isEmpty() || STOP_WORDS.contains(word)) continue;
+            if (match.length() > 0) match.append(" OR ");
+            match.append('"').append(word).append('"');
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+}
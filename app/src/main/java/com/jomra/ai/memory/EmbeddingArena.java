@@ -0,0 +1,530 @@
+package com.jomra.ai.memory;
+
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BOLT: Append-only, memory-mapped struct-of-arrays store of memory embeddings.
+ *
+ * Each segment file holds {@link #SEGMENT_ROWS} rows laid out column by column:
+ * vectors, precomputed norms, timestamps, a live flag and a fixed-width id.
+ * Recall scans the columns in place with a fork-join split and bounded top-K
+ * heaps, computing the final relevance score (cosine + recency) without
+ * touching Room or allocating per row. Removed and replaced rows stay as dead
+ * rows until {@link #compactIfSparse} rewrites the live ones.
+ */
+public class EmbeddingArena {
+    private static final String TAG = "EmbeddingArena";
+    private static final int MAGIC = 0x4152454E; // "AREN"
+    private static final int FORMAT_VERSION = 2;
+    private static final int SEGMENT_ROWS = 16384;
+    private static final int COMPACT_MIN_DEAD_ROWS = SEGMENT_ROWS / 4;
+    private static final int HEADER_BYTES = 64;
+    private static final int ID_BYTES = 40; // length byte + up to 39 ASCII chars (UUIDs are 36)
+    private static final int ROWS_OFFSET = 12; // header field updated on every append
+    private static final int LEAF_ROWS = 4096;
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final String SEGMENT_PREFIX = "memory_arena_";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACT_SUFFIX = ".tmp"; // segments of an unfinished compaction
+
+    private final File directory;
+    private final int dim;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, Integer> idToRow = new HashMap<>(); // global row = segment * SEGMENT_ROWS + row
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Segment {
+        final File file;
+        final MappedByteBuffer buffer;
+        final FloatBuffer vectors;
+        final FloatBuffer norms;
+        final LongBuffer timestamps;
+        final int flagsOffset;
+        final int idsOffset;
+        int rows;
+
+        Segment(File file, MappedByteBuffer buffer, int dim) {
+            this.file = file;
+            this.buffer = buffer;
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int offset = HEADER_BYTES;
+            this.vectors = slice(buffer, offset, SEGMENT_ROWS * dim * 4).asFloatBuffer();
+            offset += SEGMENT_ROWS * dim * 4;
+            this.norms = slice(buffer, offset, SEGMENT_ROWS * 4).asFloatBuffer();
+            offset += SEGMENT_ROWS * 4;
+            this.timestamps = slice(buffer, offset, SEGMENT_ROWS * 8).asLongBuffer();
+            offset += SEGMENT_ROWS * 8;
+            this.flagsOffset = offset;
+            this.idsOffset = offset + SEGMENT_ROWS;
+            this.rows = buffer.getInt(ROWS_OFFSET);
+        }
+
+        boolean isLive(int row) {
+            return buffer.get(flagsOffset + row) != 0;
+        }
+
+        String id(int row) {
+            int base = idsOffset + row * ID_BYTES;
+            int length = buffer.get(base) & 0xFF;
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) bytes[i] = buffer.get(base + 1 + i);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+    }
+
+    private EmbeddingArena(File directory, int dim) {
+        this.directory = directory;
+        this.dim = dim;
+    }
+
+    /** Maps every existing segment in {@code directory}; segments of another dimension are discarded. */
+    public static EmbeddingArena open(File directory, int dim) throws IOException {
+        if (!directory.exists()) directory.mkdirs();
+        EmbeddingArena arena = new EmbeddingArena(directory, dim);
+        File[] stale = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX + COMPACT_SUFFIX));
+        if (stale != null) arena.deleteSegments(stale);
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) return arena;
+        Arrays.sort(files);
+        for (File file : files) {
+            MappedByteBuffer buffer = map(file, segmentBytes(dim));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != dim) {
+                Log.w(TAG, "Discarding incompatible arena segments");
+                arena.deleteSegments(files);
+                return new EmbeddingArena(directory, dim);
+            }
+            Segment segment = new Segment(file, buffer, dim);
+            int segmentIndex = arena.segments.size();
+            arena.segments.add(segment);
+            for (int row = 0; row < segment.rows; row++) {
+                if (segment.isLive(row)) {
+                    arena.idToRow.put(segment.id(row), segmentIndex * SEGMENT_ROWS + row);
+                }
+            }
+        }
+        return arena;
+    }
+
+    public int getDimension() { return dim; }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idToRow.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return idToRow.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Appends a row; an existing row for {@code id} is tombstoned first. */
+    public boolean append(String id, float[] vector, long timestamp) throws IOException {
+        if (id == null || vector == null || vector.length != dim) return false;
+        byte[] idBytes = id.getBytes(StandardCharsets.US_ASCII);
+        if (idBytes.length >= ID_BYTES) return false;
+
+        float norm = 0f;
+        for (float v : vector) norm += v * v;
+        norm = (float) Math.sqrt(norm);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = idToRow.remove(id);
+            if (existing != null) markDead(existing);
+
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.rows == SEGMENT_ROWS) segment = newSegment();
+            int row = segment.rows;
+
+            int base = row * dim;
+            for (int i = 0; i < dim; i++) segment.vectors.put(base + i, vector[i]);
+            segment.norms.put(row, norm);
+            segment.timestamps.put(row, timestamp);
+            int idBase = segment.idsOffset + row * ID_BYTES;
+            segment.buffer.put(idBase, (byte) idBytes.length);
+            for (int i = 0; i < idBytes.length; i++) segment.buffer.put(idBase + 1 + i, idBytes[i]);
+            segment.buffer.put(segment.flagsOffset + row, (byte) 1);
+
+            // Publish the row only after its columns are written
+            segment.rows = row + 1;
+            segment.buffer.putInt(ROWS_OFFSET, segment.rows);
+            idToRow.put(id, (segments.size() - 1) * SEGMENT_ROWS + row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Refreshes the recency column of a live row in place. */
+    public boolean touch(String id, long timestamp) {
+        lock.writeLock().lock();
+        try {
+            Integer row = idToRow.get(id);
+            if (row == null) return false;
+            segments.get(row / SEGMENT_ROWS).timestamps.put(row % SEGMENT_ROWS, timestamp);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = idToRow.remove(id);
+            if (row == null) return false;
+            markDead(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            File[] files = new File[segments.size()];
+            for (int i = 0; i < files.length; i++) files[i] = segments.get(i).file;
+            segments.clear();
+            idToRow.clear();
+            deleteSegments(files);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live rows into fresh segments once dead rows make up half
+     * of all rows (and at least {@link #COMPACT_MIN_DEAD_ROWS}), so the files
+     * follow the live size rather than churn. Returns whether it ran. If it
+     * fails part-way the arena is left empty and must be rebuilt.
+     */
+    public boolean compactIfSparse() throws IOException {
+        lock.writeLock().lock();
+        try {
+            int total = 0;
+            for (Segment segment : segments) total += segment.rows;
+            int dead = total - idToRow.size();
+            if (dead < Math.max(COMPACT_MIN_DEAD_ROWS, total / 2)) return false;
+
+            List<Segment> compacted = new ArrayList<>();
+            Map<String, Integer> rows = new HashMap<>();
+            try {
+                Segment target = null;
+                for (Segment source : segments) {
+                    for (int row = 0; row < source.rows; row++) {
+                        if (!source.isLive(row)) continue;
+                        if (target == null || target.rows == SEGMENT_ROWS) {
+                            target = createSegment(new File(directory,
+                                    segmentName(compacted.size()) + COMPACT_SUFFIX));
+                            compacted.add(target);
+                        }
+                        copyRow(source, row, target, target.rows);
+                        rows.put(source.id(row), (compacted.size() - 1) * SEGMENT_ROWS + target.rows);
+                        target.rows++;
+                        target.buffer.putInt(ROWS_OFFSET, target.rows);
+                    }
+                }
+                for (Segment segment : compacted) segment.buffer.force();
+
+                File[] old = new File[segments.size()];
+                for (int i = 0; i < old.length; i++) old[i] = segments.get(i).file;
+                segments.clear();
+                idToRow.clear();
+                deleteSegments(old);
+                for (int i = 0; i < compacted.size(); i++) {
+                    Segment segment = compacted.get(i);
+                    File file = new File(directory, segmentName(i));
+                    if (!segment.file.renameTo(file)) throw new IOException("Failed to install " + file.getName());
+                    segments.add(new Segment(file, segment.buffer, dim));
+                }
+                idToRow.putAll(rows);
+                return true;
+            } catch (IOException e) {
+                File[] files = new File[segments.size() + compacted.size()];
+                for (int i = 0; i < segments.size(); i++) files[i] = segments.get(i).file;
+                for (int i = 0; i < compacted.size(); i++) files[segments.size() + i] = compacted.get(i).file;
+                segments.clear();
+                idToRow.clear();
+                deleteSegments(files);
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Flushes dirty pages to storage. */
+    public void force() {
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments) segment.buffer.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exact scan returning the {@code k} best rows by MemorySystem's relevance
+     * score: cosine similarity blended with recency.
+     */
+    public List<VectorIndex.Hit> search(float[] query, int k, long now) {
+        return searchBatch(new float[][]{query}, k, now).get(0);
+    }
+
+    /**
+     * {@link #search} for several queries in one pass over the columns: each
+     * row is read once and scored against every query, with one heap per query.
+     */
+    public List<List<VectorIndex.Hit>> searchBatch(float[][] queries, int k, long now) {
+        int n = queries.length;
+        List<List<VectorIndex.Hit>> results = new ArrayList<>(n);
+        float[] queryNorms = new float[n];
+        boolean any = false;
+        for (int q = 0; q < n; q++) {
+            float norm = 0f;
+            if (queries[q] != null && queries[q].length == dim) {
+                for (float v : queries[q]) norm += v * v;
+            }
+            queryNorms[q] = (float) Math.sqrt(norm); // 0 marks a query to skip
+            any |= norm > 0;
+        }
+        if (!any || k <= 0) {
+            for (int q = 0; q < n; q++) results.add(Collections.emptyList());
+            return results;
+        }
+
+        lock.readLock().lock();
+        try {
+            int totalRows = 0;
+            for (Segment segment : segments) totalRows += segment.rows;
+
+            TopKHeap[] heaps;
+            if (totalRows < PARALLEL_THRESHOLD) {
+                heaps = newHeaps(n, k);
+                for (int s = 0; s < segments.size(); s++) {
+                    scan(s, 0, segments.get(s).rows, queries, queryNorms, now, heaps);
+                }
+            } else {
+                // BOLT: Split the scan across cores - Expected: near-linear speedup on multi-core devices
+                heaps = ForkJoinPool.commonPool().invoke(
+                        new ScanTask(0, segments.size(), queries, queryNorms, now, k));
+            }
+
+            for (int q = 0; q < n; q++) {
+                int[] rows = new int[heaps[q].size()];
+                float[] scores = new float[heaps[q].size()];
+                int count = heaps[q].drainDescending(rows, scores);
+                List<VectorIndex.Hit> hits = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    Segment segment = segments.get(rows[i] / SEGMENT_ROWS);
+                    hits.add(new VectorIndex.Hit(segment.id(rows[i] % SEGMENT_ROWS), scores[i]));
+                }
+                results.add(hits);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scan(int segmentIndex, int from, int to, float[][] queries, float[] queryNorms,
+                      long now, TopKHeap[] heaps) {
+        Segment segment = segments.get(segmentIndex);
+        FloatBuffer vectors = segment.vectors;
+        int rowBase = segmentIndex * SEGMENT_ROWS;
+        for (int row = from; row < to; row++) {
+            if (!segment.isLive(row)) continue;
+            float norm = segment.norms.get(row);
+            if (norm == 0) continue;
+            int base = row * dim;
+            float recency = Math.max(0, 1.0f - (now - segment.timestamps.get(row)) / MemorySystem.RECENCY_WINDOW_MS);
+            for (int q = 0; q < queries.length; q++) {
+                if (queryNorms[q] == 0) continue;
+                float[] query = queries[q];
+                float dot = 0f;
+                for (int i = 0; i < dim; i++) dot += query[i] * vectors.get(base + i);
+                float similarity = dot / (queryNorms[q] * norm);
+                heaps[q].offer(similarity * MemorySystem.SIMILARITY_WEIGHT + recency * MemorySystem.RECENCY_WEIGHT,
+                        rowBase + row);
+            }
+        }
+    }
+
+    private final class ScanTask extends RecursiveTask<TopKHeap[]> {
+        private final int fromSegment;
+        private final int toSegment;
+        private final float[][] queries;
+        private final float[] queryNorms;
+        private final long now;
+        private final int k;
+
+        ScanTask(int fromSegment, int toSegment, float[][] queries, float[] queryNorms, long now, int k) {
+            this.fromSegment = fromSegment;
+            this.toSegment = toSegment;
+            this.queries = queries;
+            this.queryNorms = queryNorms;
+            this.now = now;
+            this.k = k;
+        }
+
+        @Override
+        protected TopKHeap[] compute() {
+            if (toSegment - fromSegment == 1) {
+                // Split one segment into fixed-size leaves
+                Segment segment = segments.get(fromSegment);
+                List<RowTask> leaves = new ArrayList<>();
+                for (int from = 0; from < segment.rows; from += LEAF_ROWS) {
+                    leaves.add(new RowTask(fromSegment, from, Math.min(segment.rows, from + LEAF_ROWS),
+                            queries, queryNorms, now, k));
+                }
+                invokeAll(leaves);
+                return merge(leaves, queries.length, k);
+            }
+            int mid = (fromSegment + toSegment) >>> 1;
+            ScanTask left = new ScanTask(fromSegment, mid, queries, queryNorms, now, k);
+            ScanTask right = new ScanTask(mid, toSegment, queries, queryNorms, now, k);
+            invokeAll(left, right);
+            return merge(Arrays.asList(left, right), queries.length, k);
+        }
+    }
+
+    private final class RowTask extends RecursiveTask<TopKHeap[]> {
+        private final int segmentIndex;
+        private final int from;
+        private final int to;
+        private final float[][] queries;
+        private final float[] queryNorms;
+        private final long now;
+        private final int k;
+
+        RowTask(int segmentIndex, int from, int to, float[][] queries, float[] queryNorms, long now, int k) {
+            this.segmentIndex = segmentIndex;
+            this.from = from;
+            this.to = to;
+            this.queries = queries;
+            this.queryNorms = queryNorms;
+            this.now = now;
+            this.k = k;
+        }
+
+        @Override
+        protected TopKHeap[] compute() {
+            TopKHeap[] heaps = newHeaps(queries.length, k);
+            scan(segmentIndex, from, to, queries, queryNorms, now, heaps);
+            return heaps;
+        }
+    }
+
+    private static TopKHeap[] newHeaps(int n, int k) {
+        TopKHeap[] heaps = new TopKHeap[n];
+        for (int q = 0; q < n; q++) heaps[q] = new TopKHeap(k);
+        return heaps;
+    }
+
+    private static TopKHeap[] merge(List<? extends RecursiveTask<TopKHeap[]>> tasks, int n, int k) {
+        TopKHeap[] merged = newHeaps(n, k);
+        int[] rows = new int[k];
+        float[] scores = new float[k];
+        for (RecursiveTask<TopKHeap[]> task : tasks) {
+            TopKHeap[] heaps = task.join();
+            for (int q = 0; q < n; q++) {
+                int count = heaps[q].drainDescending(rows, scores);
+                for (int i = 0; i < count; i++) merged[q].offer(scores[i], rows[i]);
+            }
+        }
+        return merged;
+    }
+
+    private void markDead(int globalRow) {
+        Segment segment = segments.get(globalRow / SEGMENT_ROWS);
+        segment.buffer.put(segment.flagsOffset + globalRow % SEGMENT_ROWS, (byte) 0);
+    }
+
+    private Segment newSegment() throws IOException {
+        Segment segment = createSegment(new File(directory, segmentName(segments.size())));
+        segments.add(segment);
+        return segment;
+    }
+
+    private Segment createSegment(File file) throws IOException {
+        MappedByteBuffer buffer = map(file, segmentBytes(dim));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, dim);
+        buffer.putInt(ROWS_OFFSET, 0);
+        return new Segment(file, buffer, dim);
+    }
+
+    private static String segmentName(int index) {
+        return String.format(java.util.Locale.US, "%s%05d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    /** Copies every column of a row; the caller publishes it by bumping {@code to.rows}. */
+    private void copyRow(Segment from, int fromRow, Segment to, int toRow) {
+        int fromBase = fromRow * dim;
+        int toBase = toRow * dim;
+        for (int i = 0; i < dim; i++) to.vectors.put(toBase + i, from.vectors.get(fromBase + i));
+        to.norms.put(toRow, from.norms.get(fromRow));
+        to.timestamps.put(toRow, from.timestamps.get(fromRow));
+        int fromId = from.idsOffset + fromRow * ID_BYTES;
+        int toId = to.idsOffset + toRow * ID_BYTES;
+        for (int i = 0; i < ID_BYTES; i++) to.buffer.put(toId + i, from.buffer.get(fromId + i));
+        to.buffer.put(to.flagsOffset + toRow, (byte) 1);
+    }
+
+    private void deleteSegments(File[] files) {
+        for (File file : files) {
+            if (!file.delete()) Log.w(TAG, "Failed to delete " + file.getName());
+        }
+    }
+
+    private static long segmentBytes(int dim) {
+        return HEADER_BYTES + (long) SEGMENT_ROWS * (dim * 4L + 4 + 8 + 1 + ID_BYTES);
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < size) raf.setLength(size);
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.limit(offset + length);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
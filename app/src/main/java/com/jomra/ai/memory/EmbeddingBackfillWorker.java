@@ -0,0 +1,132 @@
+package com.jomra.ai.memory;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.jomra.ai.models.ModelManager;
+import com.jomra.ai.storage.AppDatabase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TUBER: Re-encodes memories whose embedding came from another engine version.
+ *
+ * Works in small batches, one transaction each, pausing between them and
+ * stopping after a time budget; the remaining rows are picked up by a
+ * follow-up run. Progress needs no cursor: re-embedded rows stop matching
+ * the stale-row query. Runs while charging, or while the device is idle
+ * with a battery that is not low: WorkManager constraints can only be
+ * combined with AND, so each trigger is its own unique work and whichever
+ * starts first does the backfill.
+ */
+public class EmbeddingBackfillWorker extends Worker {
+    private static final String TAG = "EmbeddingBackfillWorker";
+    private static final String WORK_NAME = "embedding_backfill";
+    private static final String KEY_TRIGGER = "trigger";
+    private static final String TRIGGER_CHARGING = "charging";
+    private static final String TRIGGER_IDLE = "idle";
+    private static final int BATCH_SIZE = 64;
+    private static final long PAUSE_BETWEEN_BATCHES_MS = 100;
+    private static final long RUN_BUDGET_MS = 5 * 60 * 1000;
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** Notified after each committed batch so in-memory indexes can pick up the new vectors. */
+    public interface Listener {
+        void onMemoriesReembedded(List<MemoryEntity> rows, List<float[]> embeddings, int version);
+    }
+
+    private static final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+
+    public static void addListener(Listener listener) { listeners.add(listener); }
+    public static void removeListener(Listener listener) { listeners.remove(listener); }
+
+    public EmbeddingBackfillWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void schedule(Context context) {
+        schedule(context, TRIGGER_CHARGING, ExistingWorkPolicy.KEEP);
+        schedule(context, TRIGGER_IDLE, ExistingWorkPolicy.KEEP);
+    }
+
+    private static void schedule(Context context, String trigger, ExistingWorkPolicy policy) {
+        Constraints.Builder constraints = new Constraints.Builder();
+        if (TRIGGER_IDLE.equals(trigger)) {
+            constraints.setRequiresDeviceIdle(true).setRequiresBatteryNotLow(true);
+        } else {
+            constraints.setRequiresCharging(true);
+        }
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(EmbeddingBackfillWorker.class)
+            .setConstraints(constraints.build())
+            .setInputData(new Data.Builder().putString(KEY_TRIGGER, trigger).build())
+            .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME + "_" + trigger, policy, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        // The other trigger's run is already doing the work
+        if (!running.compareAndSet(false, true)) return Result.success();
+        MemoryDao memoryDao = AppDatabase.getDatabase(getApplicationContext()).memoryDao();
+        ModelManager modelManager = new ModelManager(getApplicationContext());
+        try {
+            EmbeddingEngine engine = new EmbeddingEngine(modelManager);
+            int version = engine.getVersion();
+            long deadline = System.currentTimeMillis() + RUN_BUDGET_MS;
+            int reembedded = 0;
+            List<MemoryEntity> batch;
+            do {
+                batch = memoryDao.getStaleEmbeddingRows(version, BATCH_SIZE);
+                if (batch.isEmpty()) break;
+                List<String> texts = new ArrayList<>(batch.size());
+                for (MemoryEntity entity : batch) texts.add(entity.userInput);
+                List<float[]> embeddings = engine.encodeBatch(texts);
+                if (embeddings.contains(null)) {
+                    // Never store a substitute vector under the model's version; try again later
+                    Log.w(TAG, "Sentence encoder failed, retrying backfill later");
+                    return Result.retry();
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    MemoryEntity entity = batch.get(i);
+                    entity.embeddingBlob = EmbeddingCodec.encode(embeddings.get(i), EmbeddingCodec.FLOAT32);
+                    entity.embeddingJson = null;
+                    entity.embeddingVersion = version;
+                }
+                memoryDao.update(batch);
+                List<MemoryEntity> rows = Collections.unmodifiableList(batch);
+                for (Listener listener : listeners) listener.onMemoriesReembedded(rows, embeddings, version);
+                reembedded += batch.size();
+                Thread.sleep(PAUSE_BETWEEN_BATCHES_MS);
+            } while (batch.size() == BATCH_SIZE && !isStopped() && System.currentTimeMillis() < deadline);
+
+            Log.i(TAG, "Re-embedded " + reembedded + " memories");
+            if (!isStopped() && memoryDao.countStaleEmbeddings(version) > 0) {
+                // Out of budget; queue a follow-up run after this one
+                String trigger = getInputData().getString(KEY_TRIGGER);
+                schedule(getApplicationContext(), trigger != null ? trigger : TRIGGER_CHARGING,
+                    ExistingWorkPolicy.APPEND_OR_REPLACE);
+            }
+            return Result.success();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        } catch (Exception e) {
+            Log.e(TAG, "Embedding backfill failed", e);
+            return Result.retry();
+        } finally {
+            modelManager.unloadAll();
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.jomra.ai.memory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BOLT: Byte-budgeted segmented LRU for decoded embeddings.
+ *
+ * New entries land in a probation segment; a second hit promotes them to the
+ * protected segment (80% of the budget), so one-off recall candidates cannot
+ * flush embeddings that are recalled repeatedly. Weight is the float payload size.
+ */
+public class EmbeddingCache {
+    private static final float PROTECTED_RATIO = 0.8f;
+
+    private final long maxBytes;
+    private final long protectedMaxBytes;
+    private final LinkedHashMap<String, float[]> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, float[]> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long probationBytes = 0;
+    private long protectedBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public EmbeddingCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.protectedMaxBytes = (long) (maxBytes * PROTECTED_RATIO);
+    }
+
+    public synchronized float[] get(String id) {
+        float[] value = protectedSegment.get(id);
+        if (value != null) {
+            hits++;
+            return value;
+        }
+        value = probation.remove(id);
+        if (value == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        probationBytes -= weight(value);
+        protectedSegment.put(id, value);
+        protectedBytes += weight(value);
+        demoteOverflow();
+        return value;
+    }
+
+    public synchronized void put(String id, float[] value) {
+        if (value == null || weight(value) > maxBytes) return;
+        invalidateLocked(id);
+        probation.put(id, value);
+        probationBytes += weight(value);
+        evictOverflow();
+    }
+
+    public synchronized void invalidate(String id) {
+        invalidateLocked(id);
+    }
+
+    public synchronized void clear() {
+        probation.clear();
+        protectedSegment.clear();
+        probationBytes = 0;
+        protectedBytes = 0;
+    }
+
+    public synchronized long getWeightBytes() { return probationBytes + protectedBytes; }
+    public synchronized int size() { return probation.size() + protectedSegment.size(); }
+    public synchronized long getHitCount() { return hits; }
+    public synchronized long getMissCount() { return misses; }
+    public synchronized long getEvictionCount() { return evictions; }
+
+    public synchronized float getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    private void invalidateLocked(String id) {
+        float[] removed = probation.remove(id);
+        if (removed != null) probationBytes -= weight(removed);
+        removed = protectedSegment.remove(id);
+        if (removed != null) protectedBytes -= weight(removed);
+    }
+
+    /** Moves least-recently-used protected entries back to probation. */
+    private void demoteOverflow() {
+        Iterator<Map.Entry<String, float[]>> it = protectedSegment.entrySet().iterator();
+        while (protectedBytes > protectedMaxBytes && it.hasNext()) {
+            Map.Entry<String, float[]> eldest = it.next();
+            it.remove();
+            protectedBytes -= weight(eldest.getValue());
+            probation.put(eldest.getKey(), eldest.getValue());
+            probationBytes += weight(eldest.getValue());
+        }
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, float[]>> it = probation.entrySet().iterator();
+        while (probationBytes + protectedBytes > maxBytes && it.hasNext()) {
+            probationBytes -= weight(it.next().getValue());
+            it.remove();
+            evictions++;
+        }
+        it = protectedSegment.entrySet().iterator();
+        while (probationBytes + protectedBytes > maxBytes && it.hasNext()) {
+            protectedBytes -= weight(it.next().getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static long weight(float[] value) {
+        return (long) value.length * Float.BYTES;
+    }
+}
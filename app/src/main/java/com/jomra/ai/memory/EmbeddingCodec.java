@@ -0,0 +1,144 @@
+package com.jomra.ai.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * TUBER: Compact binary embedding format stored in {@code MemoryEntity.embeddingBlob}.
+ *
+ * Layout (little-endian): magic, format version, encoding, reserved, int32 dim,
+ * then the payload. The 8-byte header keeps float32 payloads 4-byte aligned, so
+ * {@link #decode} bulk-copies them through one {@link ByteBuffer#asFloatBuffer()}.
+ * INT8 payloads are prefixed with the float32 min and step used to quantize.
+ */
+public final class EmbeddingCodec {
+    public static final byte FLOAT32 = 0;
+    public static final byte FLOAT16 = 1;
+    public static final byte INT8 = 2;
+
+    private static final byte MAGIC = (byte) 0xE8;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private EmbeddingCodec() {}
+
+    public static byte[] encode(float[] embedding, byte encoding) {
+        int dim = embedding.length;
+        ByteBuffer buffer;
+        switch (encoding) {
+            case FLOAT32:
+                buffer = header(HEADER_BYTES + dim * 4, encoding, dim);
+                buffer.asFloatBuffer().put(embedding);
+                break;
+            case FLOAT16:
+                buffer = header(HEADER_BYTES + dim * 2, encoding, dim);
+                for (float v : embedding) buffer.putShort(floatToHalf(v));
+                break;
+            case INT8: {
+                buffer = header(HEADER_BYTES + 8 + dim, encoding, dim);
+                float min = Float.MAX_VALUE;
+                float max = -Float.MAX_VALUE;
+                for (float v : embedding) {
+                    if (v < min) min = v;
+                    if (v > max) max = v;
+                }
+                if (dim == 0) min = max = 0f;
+                float step = (max - min) / 255f;
+                buffer.putFloat(min);
+                buffer.putFloat(step);
+                for (float v : embedding) {
+                    int q = step == 0 ? 0 : Math.round((v - min) / step);
+                    buffer.put((byte) Math.max(0, Math.min(255, q)));
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown embedding encoding: " + encoding);
+        }
+        return buffer.array();
+    }
+
+    /** Decodes any supported encoding; returns null for null or unrecognised blobs. */
+    public static float[] decode(byte[] blob) {
+        if (!isValid(blob)) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(blob).order(ByteOrder.LITTLE_ENDIAN);
+        byte encoding = buffer.get(2);
+        int dim = buffer.getInt(4);
+        float[] out = new float[dim];
+        buffer.position(HEADER_BYTES);
+        switch (encoding) {
+            case FLOAT32:
+                // BOLT: Bulk copy through a FloatBuffer view instead of per-element parsing
+                buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(out);
+                return out;
+            case FLOAT16:
+                for (int i = 0; i < dim; i++) out[i] = halfToFloat(buffer.getShort());
+                return out;
+            case INT8: {
+                float min = buffer.getFloat();
+                float step = buffer.getFloat();
+                for (int i = 0; i < dim; i++) out[i] = min + (buffer.get() & 0xFF) * step;
+                return out;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isValid(byte[] blob) {
+        return blob != null && blob.length >= HEADER_BYTES
+                && blob[0] == MAGIC && blob[1] == FORMAT_VERSION;
+    }
+
+    private static ByteBuffer header(int size, byte encoding, int dim) {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC).put(FORMAT_VERSION).put(encoding).put((byte) 0).putInt(dim);
+        return buffer;
+    }
+
+    // IEEE 754 half precision; minSdk 24 predates android.util.Half.
+    static short floatToHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exp = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exp >= 0x1F) {
+            // Overflow, infinity or NaN
+            boolean nan = ((bits >>> 23) & 0xFF) == 0xFF && mantissa != 0;
+            return (short) (sign | 0x7C00 | (nan ? 0x200 : 0));
+        }
+        if (exp <= 0) {
+            if (exp < -10) return (short) sign;
+            mantissa |= 0x800000;
+            int shift = 14 - exp;
+            int half = mantissa >> shift;
+            if (((mantissa >> (shift - 1)) & 1) != 0) half++;
+            return (short) (sign | half);
+        }
+        int half = sign | (exp << 10) | (mantissa >> 13);
+        if ((mantissa & 0x1000) != 0) half++; // round half up; carry into exponent is correct
+        return (short) half;
+    }
+
+    static float halfToFloat(short half) {
+        int h = half & 0xFFFF;
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1F;
+        int mantissa = h & 0x3FF;
+
+        if (exp == 0) {
+            if (mantissa == 0) return Float.intBitsToFloat(sign);
+            // Subnormal: normalise the mantissa
+            while ((mantissa & 0x400) == 0) {
+                mantissa <<= 1;
+                exp--;
+            }
+            exp++;
+            mantissa &= 0x3FF;
+        } else if (exp == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exp + 127 - 15) << 23) | (mantissa << 13));
+    }
+}
@@ -1,13 +1,244 @@
 package com.jomra.ai.memory;
 
+import android.util.Log;
+import com.jomra.ai.models.ModelManager;
+import org.tensorflow.lite.Interpreter;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sentence embeddings for memory recall.
+ *
+ * Runs {@link #MODEL_NAME} through {@link ModelManager} when it is bundled together
+ * with its WordPiece vocabulary {@link #VOCAB_NAME}; the model is an uncased BERT-style
+ * encoder taking input ids (and optionally an attention mask) of
+ * {@link #MAX_SEQ_LENGTH}. Without either file it falls back to hashed bag-of-words
+ * vectors, which at least score shared words as similar. Up to {@link #MAX_BATCH}
+ * texts share one interpreter call, and recent texts are served from an LRU cache.
+ * When the model is loaded but inference fails, texts encode to null rather than
+ * to hashed vectors, which are not comparable with the model's.
+ */
 public class EmbeddingEngine {
-    private static final int EMBEDDING_DIM = 128;
+    private static final String TAG = "EmbeddingEngine";
+    public static final String MODEL_NAME = "sentence_encoder.tflite";
+    public static final String VOCAB_NAME = "sentence_encoder_vocab.txt";
+    private static final int FALLBACK_DIM = 128;
+    private static final int MAX_SEQ_LENGTH = 64;
+    private static final int MAX_BATCH = 16;
+    private static final int CACHE_CAPACITY = 256;
+    // Stored with every embedding (MemoryEntity.embeddingVersion); 0 was the pre-encoder stub.
+    // Bump MODEL_VERSION whenever the bundled model or its tokenization changes
+    // (2 fed the model hashed word ids instead of its vocabulary).
+    public static final int HASHED_VERSION = 1;
+    public static final int MODEL_VERSION = 3;
+
+    private final Interpreter interpreter; // null when running the fallback
+    private final WordPieceTokenizer tokenizer;
+    private final int dim;
+    private final boolean hasAttentionMask;
+    private final Map<String, float[]> cache;
+
+    // BOLT: Preallocated direct I/O buffers sized for a full batch, reused across calls
+    private ByteBuffer inputIds;
+    private ByteBuffer attentionMask;
+    private ByteBuffer output;
+    private int allocatedBatch = -1;
+
+    public EmbeddingEngine() {
+        this(null);
+    }
+
+    public EmbeddingEngine(ModelManager modelManager) {
+        Interpreter loaded = null;
+        WordPieceTokenizer wordPiece = null;
+        int modelDim = FALLBACK_DIM;
+        boolean mask = false;
+        if (modelManager != null) {
+            try {
+                loaded = modelManager.loadModel(MODEL_NAME);
+                if (loaded != null) {
+                    // Ids outside the model's own vocabulary would make its vectors meaningless
+                    try (InputStream vocab = modelManager.openAsset(VOCAB_NAME)) {
+                        wordPiece = WordPieceTokenizer.load(vocab);
+                    }
+                    int[] outputShape = loaded.getOutputTensor(0).shape();
+                    modelDim = outputShape[outputShape.length - 1];
+                    mask = loaded.getInputTensorCount() > 1;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Sentence encoder unavailable, using hashed embeddings", e);
+                loaded = null;
+                wordPiece = null;
+                modelDim = FALLBACK_DIM;
+                mask = false;
+            }
+        }
+        this.interpreter = loaded;
+        this.tokenizer = wordPiece;
+        this.dim = modelDim;
+        this.hasAttentionMask = mask;
+        this.cache = new LinkedHashMap<String, float[]>(CACHE_CAPACITY, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > CACHE_CAPACITY;
+            }
+        };
+        if (interpreter != null) {
+            inputIds = ByteBuffer.allocateDirect(MAX_BATCH * MAX_SEQ_LENGTH * 4).order(ByteOrder.nativeOrder());
+            attentionMask = ByteBuffer.allocateDirect(MAX_BATCH * MAX_SEQ_LENGTH * 4).order(ByteOrder.nativeOrder());
+            output = ByteBuffer.allocateDirect(MAX_BATCH * dim * 4).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /** Null if the loaded model failed on this text; see {@link #encodeBatch}. */
     public float[] encode(String text) {
-        float[] embedding = new float[EMBEDDING_DIM];
-        int hash = text.hashCode();
-        for (int i = 0; i < EMBEDDING_DIM; i++) {
-            embedding[i] = (float) Math.sin(hash * (i + 1)) * 0.1f;
+        if (text == null) text = "";
+        synchronized (cache) {
+            float[] cached = cache.get(text);
+            if (cached != null) return cached;
         }
+        List<String> single = new ArrayList<>(1);
+        single.add(text);
+        return encodeBatch(single).get(0);
+    }
+
+    /**
+     * Encodes {@code texts} in order; cache misses share interpreter calls of up to
+     * {@link #MAX_BATCH}. Entries are null where the loaded model failed; those are
+     * not cached, so a later call retries them.
+     */
+    public List<float[]> encodeBatch(List<String> texts) {
+        float[][] results = new float[texts.size()][];
+        List<Integer> missing = new ArrayList<>();
+        synchronized (cache) {
+            for (int i = 0; i < texts.size(); i++) {
+                String text = texts.get(i) != null ? texts.get(i) : "";
+                results[i] = cache.get(text);
+                if (results[i] == null) missing.add(i);
+            }
+        }
+
+        // Identical texts within a batch are encoded once
+        Map<String, float[]> computed = new HashMap<>();
+        List<String> pending = new ArrayList<>();
+        for (int i : missing) {
+            String text = texts.get(i) != null ? texts.get(i) : "";
+            if (!computed.containsKey(text)) {
+                computed.put(text, null);
+                pending.add(text);
+            }
+        }
+        for (int from = 0; from < pending.size(); from += MAX_BATCH) {
+            List<String> chunk = pending.subList(from, Math.min(pending.size(), from + MAX_BATCH));
+            List<float[]> vectors = interpreter != null ? runModel(chunk) : null;
+            for (int j = 0; j < chunk.size(); j++) {
+                // Never substitute hashed vectors for a loaded model: they would pass as MODEL_VERSION
+                float[] vector = interpreter == null ? hashedEmbedding(chunk.get(j))
+                    : vectors != null ? vectors.get(j) : null;
+                computed.put(chunk.get(j), vector);
+            }
+        }
+
+        synchronized (cache) {
+            for (int i : missing) {
+                String text = texts.get(i) != null ? texts.get(i) : "";
+                results[i] = computed.get(text);
+                if (results[i] != null) cache.put(text, results[i]);
+            }
+        }
+        List<float[]> out = new ArrayList<>(results.length);
+        for (float[] result : results) out.add(result);
+        return out;
+    }
+
+    /** Runs one batched interpreter call; null on failure. */
+    private synchronized List<float[]> runModel(List<String> texts) {
+        int batch = texts.size();
+        try {
+            if (batch != allocatedBatch) {
+                interpreter.resizeInput(0, new int[]{batch, MAX_SEQ_LENGTH});
+                if (hasAttentionMask) interpreter.resizeInput(1, new int[]{batch, MAX_SEQ_LENGTH});
+                interpreter.allocateTensors();
+                allocatedBatch = batch;
+            }
+
+            inputIds.clear();
+            attentionMask.clear();
+            IntBuffer ids = inputIds.asIntBuffer();
+            IntBuffer mask = attentionMask.asIntBuffer();
+            for (String text : texts) {
+                int length = tokenizer.encode(text, ids, MAX_SEQ_LENGTH);
+                for (int i = 0; i < MAX_SEQ_LENGTH; i++) mask.put(i < length ? 1 : 0);
+            }
+            inputIds.limit(batch * MAX_SEQ_LENGTH * 4);
+            attentionMask.limit(batch * MAX_SEQ_LENGTH * 4);
+            output.clear();
+            output.limit(batch * dim * 4);
+
+            Map<Integer, Object> outputs = new HashMap<>();
+            outputs.put(0, output);
+            Object[] inputs = hasAttentionMask ? new Object[]{inputIds, attentionMask} : new Object[]{inputIds};
+            interpreter.runForMultipleInputsOutputs(inputs, outputs);
+
+            output.rewind();
+            FloatBuffer floats = output.asFloatBuffer();
+            List<float[]> vectors = new ArrayList<>(batch);
+            for (int b = 0; b < batch; b++) {
+                float[] vector = new float[dim];
+                floats.get(vector);
+                normalize(vector);
+                vectors.add(vector);
+            }
+            return vectors;
+        } catch (Exception e) {
+            Log.e(TAG, "Batch encoding failed for " + batch + " texts", e);
+            allocatedBatch = -1;
+            return null;
+        }
+    }
+
+    /** Feature-hashed bag of words with signed buckets, L2-normalized. */
+    private float[] hashedEmbedding(String text) {
+        float[] embedding = new float[dim];
+        for (String word : words(text)) {
+            int hash = word.hashCode() * 0x9E3779B1;
+            embedding[Math.floorMod(hash, dim)] += (hash >>> 31) == 0 ? 1f : -1f;
+        }
+        normalize(embedding);
         return embedding;
     }
+
+    private static String[] words(String text) {
+        String normalized = text.toLowerCase().replaceAll("[^\\p{L}\\p{N}\\s]", " ").trim();
+        return normalized.isEmpty() ? new String[0] : normalized.split("\\s+");
+    }
+
+    private static void normalize(float[] vector) {
+        float norm = 0f;
+        for (float v : vector) norm += v * v;
+        if (norm == 0) return;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) vector[i] *= inv;
+    }
+
+    public int getDimension() {
+        return dim;
+    }
+
+    /** Embeddings from different versions are not comparable. */
+    public int getVersion() {
+        return interpreter != null ? MODEL_VERSION : HASHED_VERSION;
+    }
+
+    public boolean isModelBacked() {
+        return interpreter != null;
+    }
 }
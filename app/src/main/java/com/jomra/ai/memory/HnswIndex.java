@@ -0,0 +1,574 @@
+package com.jomra.ai.memory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BOLT: Incremental HNSW graph over memory embeddings.
+ * Vectors are L2-normalised on insert, so distance is {@code 1 - dot} and
+ * similarity matches {@code MemorySystem}'s cosine scoring.
+ */
+public class HnswIndex implements VectorIndex {
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int FORMAT_VERSION = 2;
+    private static final int INITIAL_CAPACITY = 256;
+
+    public static final VectorIndexStore.Format FORMAT = new VectorIndexStore.Format() {
+        @Override
+        public VectorIndex read(DataInputStream in, int dim) throws IOException {
+            return readFrom(in, dim);
+        }
+
+        @Override
+        public VectorIndex create(int dim) {
+            return new HnswIndex(dim);
+        }
+    };
+
+    private final int dim;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<VisitedSet> visitedSets = new ThreadLocal<>();
+    private volatile int efSearch = DEFAULT_EF_SEARCH;
+
+    private float[] vectors;
+    private String[] ids;
+    private int[] levels;
+    private int[][][] links; // node -> level -> [count, n0, n1, ...]
+    private final Map<String, Integer> idToNode = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int count = 0;
+    private int deletedCount = 0;
+    private int rejectedCount = 0; // zero-norm vectors add() refused
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dim) {
+        this(dim, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    public HnswIndex(int dim, int m, int efConstruction) {
+        this.dim = dim;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.vectors = new float[INITIAL_CAPACITY * dim];
+        this.ids = new String[INITIAL_CAPACITY];
+        this.levels = new int[INITIAL_CAPACITY];
+        this.links = new int[INITIAL_CAPACITY][][];
+    }
+
+    @Override
+    public int getDimension() { return dim; }
+
+    /** Recall/latency knob: larger values visit more of the graph per query. */
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    public int getEfSearch() { return efSearch; }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getRejectedCount() {
+        lock.readLock().lock();
+        try {
+            return rejectedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDeletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return idToNode.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts or replaces the vector for {@code id}. Vectors of the wrong
+     * dimension are rejected rather than truncated.
+     */
+    @Override
+    public boolean add(String id, float[] vector) {
+        if (id == null || vector == null || vector.length != dim) return false;
+        float[] normalized = normalize(vector);
+        if (normalized == null) {
+            lock.writeLock().lock();
+            try {
+                rejectedCount++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = idToNode.get(id);
+            if (existing != null) markDeleted(existing);
+
+            int node = count;
+            ensureCapacity(node + 1);
+            System.arraycopy(normalized, 0, vectors, node * dim, dim);
+            ids[node] = id;
+            int level = randomLevel();
+            levels[node] = level;
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                links[node][l] = new int[maxConnections(l) + 1];
+            }
+            count++;
+            idToNode.put(id, node);
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return true;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(normalized, 0, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                LongHeap nearest = searchLayer(normalized, 0, current, efConstruction, l);
+                long[] sorted = nearest.drainAscending();
+                int[] selected = selectNeighbors(sorted, m);
+                for (int neighbor : selected) {
+                    addLink(node, neighbor, l);
+                    addLink(neighbor, node, l);
+                }
+                current = decodeNode(sorted[0]);
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Tombstones {@code id}; the node keeps routing searches until the next rebuild. */
+    @Override
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = idToNode.remove(id);
+            if (node == null) return false;
+            markDeleted(node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            vectors = new float[INITIAL_CAPACITY * dim];
+            ids = new String[INITIAL_CAPACITY];
+            levels = new int[INITIAL_CAPACITY];
+            links = new int[INITIAL_CAPACITY][][];
+            idToNode.clear();
+            deleted.clear();
+            count = 0;
+            deletedCount = 0;
+            rejectedCount = 0;
+            entryPoint = -1;
+            maxLevel = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Hit> search(float[] query, int k) {
+        if (query == null || query.length != dim || k <= 0) return Collections.emptyList();
+        float[] normalized = normalize(query);
+        if (normalized == null) return Collections.emptyList();
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || count == deletedCount) return Collections.emptyList();
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, 0, current, l);
+            }
+            LongHeap nearest = searchLayer(normalized, 0, current, Math.max(efSearch, k), 0);
+            long[] sorted = nearest.drainAscending();
+
+            List<Hit> hits = new ArrayList<>(Math.min(k, sorted.length));
+            for (long entry : sorted) {
+                int node = decodeNode(entry);
+                if (deleted.get(node)) continue;
+                hits.add(new Hit(ids[node], 1.0f - decodeDistance(entry)));
+                if (hits.size() >= k) break;
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markDeleted(int node) {
+        if (!deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        if (r <= 0) r = Double.MIN_VALUE;
+        return (int) Math.floor(-Math.log(r) * levelMultiplier);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int newCapacity = Math.max(needed, ids.length * 2);
+        vectors = Arrays.copyOf(vectors, newCapacity * dim);
+        ids = Arrays.copyOf(ids, newCapacity);
+        levels = Arrays.copyOf(levels, newCapacity);
+        links = Arrays.copyOf(links, newCapacity);
+    }
+
+    private float distance(float[] query, int queryOffset, int node) {
+        float dot = 0f;
+        int base = node * dim;
+        for (int i = 0; i < dim; i++) {
+            dot += query[queryOffset + i] * vectors[base + i];
+        }
+        return Math.max(0f, 1.0f - dot);
+    }
+
+    private int greedyClosest(float[] query, int offset, int start, int level) {
+        int current = start;
+        float currentDist = distance(query, offset, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int candidate = neighbors[i];
+                float d = distance(query, offset, candidate);
+                if (d < currentDist) {
+                    currentDist = d;
+                    current = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /** Beam search on one layer; returns a max-heap (by distance) of at most {@code ef} nodes. */
+    private LongHeap searchLayer(float[] query, int offset, int start, int ef, int level) {
+        VisitedSet visited = visitedSets.get();
+        if (visited == null) {
+            visited = new VisitedSet();
+            visitedSets.set(visited);
+        }
+        visited.reset(count);
+
+        LongHeap candidates = new LongHeap(ef * 2); // min-heap on distance
+        LongHeap results = new LongHeap(ef + 1);    // max-heap via negated keys
+
+        long startKey = encode(distance(query, offset, start), start);
+        candidates.add(startKey);
+        results.add(-startKey);
+        visited.mark(start);
+
+        while (candidates.size() > 0) {
+            long closest = candidates.poll();
+            float furthest = decodeDistance(-results.peek());
+            if (decodeDistance(closest) > furthest && results.size() >= ef) break;
+
+            int[] neighbors = links[decodeNode(closest)][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.isMarked(neighbor)) continue;
+                visited.mark(neighbor);
+
+                float d = distance(query, offset, neighbor);
+                if (results.size() < ef || d < decodeDistance(-results.peek())) {
+                    long key = encode(d, neighbor);
+                    candidates.add(key);
+                    results.add(-key);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+        return results;
+    }
+
+    /** HNSW heuristic neighbour selection, topped up with pruned candidates. */
+    private int[] selectNeighbors(long[] ascending, int limit) {
+        int[] selected = new int[Math.min(limit, ascending.length)];
+        int size = 0;
+        boolean[] pruned = new boolean[ascending.length];
+        for (int i = 0; i < ascending.length && size < selected.length; i++) {
+            int candidate = decodeNode(ascending[i]);
+            float distToQuery = decodeDistance(ascending[i]);
+            boolean keep = true;
+            for (int j = 0; j < size; j++) {
+                if (distance(vectors, candidate * dim, selected[j]) < distToQuery) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[size++] = candidate;
+            } else {
+                pruned[i] = true;
+            }
+        }
+        for (int i = 0; i < ascending.length && size < selected.length; i++) {
+            if (pruned[i]) selected[size++] = decodeNode(ascending[i]);
+        }
+        return size == selected.length ? selected : Arrays.copyOf(selected, size);
+    }
+
+    private void addLink(int from, int to, int level) {
+        int[] neighbors = links[from][level];
+        int size = neighbors[0];
+        for (int i = 1; i <= size; i++) {
+            if (neighbors[i] == to) return;
+        }
+        int capacity = neighbors.length - 1;
+        if (size < capacity) {
+            neighbors[size + 1] = to;
+            neighbors[0] = size + 1;
+            return;
+        }
+
+        // Overflow: re-select from existing neighbours plus the new one
+        long[] pool = new long[size + 1];
+        int base = from * dim;
+        for (int i = 0; i < size; i++) {
+            pool[i] = encode(distance(vectors, base, neighbors[i + 1]), neighbors[i + 1]);
+        }
+        pool[size] = encode(distance(vectors, base, to), to);
+        Arrays.sort(pool);
+        int[] kept = selectNeighbors(pool, capacity);
+        neighbors[0] = kept.length;
+        System.arraycopy(kept, 0, neighbors, 1, kept.length);
+    }
+
+    // Distances are clamped to >= 0, so their float bits sort like the floats themselves.
+    private static long encode(float distance, int node) {
+        return ((long) Float.floatToRawIntBits(distance) << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    private static int decodeNode(long key) {
+        return (int) key;
+    }
+
+    private static float decodeDistance(long key) {
+        return Float.intBitsToFloat((int) (key >>> 32));
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        if (norm == 0) return null;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        float[] out = new float[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = v[i] * inv;
+        return out;
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(dim);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(count);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            out.writeInt(rejectedCount);
+            for (int node = 0; node < count; node++) {
+                out.writeUTF(ids[node]);
+                out.writeBoolean(deleted.get(node));
+                out.writeInt(levels[node]);
+                int base = node * dim;
+                for (int i = 0; i < dim; i++) out.writeFloat(vectors[base + i]);
+                for (int l = 0; l <= levels[node]; l++) {
+                    int[] neighbors = links[node][l];
+                    out.writeInt(neighbors[0]);
+                    for (int i = 1; i <= neighbors[0]; i++) out.writeInt(neighbors[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Reads a snapshot written by {@link #writeTo}; returns null if it does not match {@code dim}. */
+    public static HnswIndex readFrom(DataInputStream in, int dim) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) return null;
+        int storedDim = in.readInt();
+        int m = in.readInt();
+        int efConstruction = in.readInt();
+        if (storedDim != dim) return null;
+
+        HnswIndex index = new HnswIndex(dim, m, efConstruction);
+        int count = in.readInt();
+        index.ensureCapacity(count);
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        index.rejectedCount = in.readInt();
+        for (int node = 0; node < count; node++) {
+            index.ids[node] = in.readUTF();
+            boolean isDeleted = in.readBoolean();
+            int level = in.readInt();
+            index.levels[node] = level;
+            int base = node * dim;
+            for (int i = 0; i < dim; i++) index.vectors[base + i] = in.readFloat();
+            index.links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                int[] neighbors = new int[index.maxConnections(l) + 1];
+                int size = in.readInt();
+                neighbors[0] = size;
+                for (int i = 1; i <= size; i++) neighbors[i] = in.readInt();
+                index.links[node][l] = neighbors;
+            }
+            if (isDeleted) {
+                index.deleted.set(node);
+                index.deletedCount++;
+            } else {
+                index.idToNode.put(index.ids[node], node);
+            }
+        }
+        index.count = count;
+        return index;
+    }
+
+    /** Per-thread visited marks, reset in O(1) by bumping a generation tag. */
+    private static final class VisitedSet {
+        private int[] tags = new int[0];
+        private int generation = 0;
+
+        void reset(int capacity) {
+            if (tags.length < capacity) {
+                tags = new int[Math.max(capacity, tags.length * 2)];
+                generation = 0;
+            }
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(tags, 0);
+                generation = 1;
+            }
+        }
+
+        boolean isMarked(int node) { return tags[node] == generation; }
+        void mark(int node) { tags[node] = generation; }
+    }
+
+    /** Primitive binary min-heap of packed (distance, node) keys. */
+    private static final class LongHeap {
+        private long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[Math.max(4, capacity)];
+        }
+
+        int size() { return size; }
+        long peek() { return heap[0]; }
+
+        void add(long value) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            int i = size++;
+            heap[i] = value;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= heap[i]) break;
+                long tmp = heap[parent];
+                heap[parent] = heap[i];
+                heap[i] = tmp;
+                i = parent;
+            }
+        }
+
+        long poll() {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            int i = 0;
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int smallest = left;
+                int right = left + 1;
+                if (right < size && heap[right] < heap[left]) smallest = right;
+                if (heap[i] <= heap[smallest]) break;
+                long tmp = heap[i];
+                heap[i] = heap[smallest];
+                heap[smallest] = tmp;
+                i = smallest;
+            }
+            return top;
+        }
+
+        /** Drains a negated-key max-heap into ascending distance order. */
+        long[] drainAscending() {
+            long[] out = new long[size];
+            for (int i = size - 1; i >= 0; i--) out[i] = -poll();
+            return out;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.jomra.ai.memory;
+
+/** Row of {@link MemoryDao#searchLexical}: a memory id, its rowid and its raw FTS4 matchinfo blob. */
+public class LexicalHit {
+    public String id;
+    public long rowId;
+    public byte[] matchInfo;
+}
@@ -0,0 +1,71 @@
+package com.jomra.ai.memory;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.jomra.ai.storage.AppDatabase;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily {@link MemoryCompactor} pass, run while the device is idle and the
+ * battery is not low. The reclaimed rows and bytes are reported in the output data.
+ */
+public class MemoryCompactionWorker extends Worker {
+    private static final String TAG = "MemoryCompactionWorker";
+    private static final String WORK_NAME = "memory_compaction";
+    public static final String KEY_MAX_ROWS = "max_rows";
+    public static final String KEY_MAX_BYTES = "max_bytes";
+    public static final String KEY_RECLAIMED_ROWS = "reclaimed_rows";
+    public static final String KEY_RECLAIMED_BYTES = "reclaimed_bytes";
+
+    public MemoryCompactionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void schedule(Context context) {
+        schedule(context, MemoryCompactor.DEFAULT_MAX_ROWS, MemoryCompactor.DEFAULT_MAX_BYTES);
+    }
+
+    public static void schedule(Context context, int maxRows, long maxBytes) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiresDeviceIdle(true)
+            .setRequiresBatteryNotLow(true)
+            .build();
+        Data input = new Data.Builder()
+            .putInt(KEY_MAX_ROWS, maxRows)
+            .putLong(KEY_MAX_BYTES, maxBytes)
+            .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                MemoryCompactionWorker.class, 1, TimeUnit.DAYS)
+            .setConstraints(constraints)
+            .setInputData(input)
+            .build();
+        WorkManager.getInstance(context)
+            .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.UPDATE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            int maxRows = getInputData().getInt(KEY_MAX_ROWS, MemoryCompactor.DEFAULT_MAX_ROWS);
+            long maxBytes = getInputData().getLong(KEY_MAX_BYTES, MemoryCompactor.DEFAULT_MAX_BYTES);
+            MemoryCompactor.Report report = new MemoryCompactor(
+                AppDatabase.getDatabase(getApplicationContext()), maxRows, maxBytes).compact();
+            return Result.success(new Data.Builder()
+                .putInt(KEY_RECLAIMED_ROWS, report.rowsBefore - report.rowsAfter)
+                .putLong(KEY_RECLAIMED_BYTES, report.getReclaimedBytes())
+                .build());
+        } catch (Exception e) {
+            Log.e(TAG, "Memory compaction failed", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.jomra.ai.memory;
+
+import android.database.Cursor;
+import android.util.Log;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.jomra.ai.storage.AppDatabase;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * TUBER: Keeps the memories table inside a row and byte budget.
+ *
+ * One pass merges memories whose normalized user input is identical, evicts
+ * the lowest time-decayed importance until the budget holds, then reclaims
+ * free pages with incremental vacuum and refreshes planner statistics.
+ * Memories are only dropped for age when an eviction floor is configured;
+ * by default a store within budget keeps everything.
+ */
+public class MemoryCompactor {
+    private static final String TAG = "MemoryCompactor";
+    public static final int DEFAULT_MAX_ROWS = 20000;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final long DEFAULT_HALF_LIFE_MS = 30L * 24 * 60 * 60 * 1000;
+    /** Decayed importance below which memories go even within budget; 0 disables it. */
+    public static final float DEFAULT_EVICTION_FLOOR = 0f;
+    private static final int PAGE_SIZE = 1000;
+    private static final int DELETE_CHUNK = 400; // edge delete binds each id twice; SQLite allows 999
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    /** Notified with ids removed by compaction so in-memory indexes can drop them. */
+    public interface Listener {
+        void onMemoriesDeleted(Collection<String> ids);
+    }
+
+    private static final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+
+    public static void addListener(Listener listener) { listeners.add(listener); }
+    public static void removeListener(Listener listener) { listeners.remove(listener); }
+
+    /** What a compaction pass reclaimed. */
+    public static class Report {
+        public int rowsBefore;
+        public int rowsAfter;
+        public int mergedRows;
+        public int evictedRows;
+        public long bytesBefore;
+        public long bytesAfter;
+
+        public long getReclaimedBytes() { return Math.max(0, bytesBefore - bytesAfter); }
+
+        @Override
+        public String toString() {
+            return "rows " + rowsBefore + " -> " + rowsAfter + " (merged " + mergedRows
+                    + ", evicted " + evictedRows + "), reclaimed " + getReclaimedBytes() + " bytes";
+        }
+    }
+
+    private final AppDatabase database;
+    private final MemoryDao memoryDao;
+    private final MemoryEdgeDao memoryEdgeDao;
+    private final int maxRows;
+    private final long maxBytes;
+    private final long halfLifeMs;
+    private final float evictionFloor;
+
+    public MemoryCompactor(AppDatabase database, int maxRows, long maxBytes) {
+        this(database, maxRows, maxBytes, DEFAULT_HALF_LIFE_MS);
+    }
+
+    public MemoryCompactor(AppDatabase database, int maxRows, long maxBytes, long halfLifeMs) {
+        this(database, maxRows, maxBytes, halfLifeMs, DEFAULT_EVICTION_FLOOR);
+    }
+
+    public MemoryCompactor(AppDatabase database, int maxRows, long maxBytes, long halfLifeMs,
+                           float evictionFloor) {
+        this.database = database;
+        this.memoryDao = database.memoryDao();
+        this.memoryEdgeDao = database.memoryEdgeDao();
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.halfLifeMs = halfLifeMs;
+        this.evictionFloor = evictionFloor;
+    }
+
+    public Report compact() {
+        Report report = new Report();
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        report.bytesBefore = databaseBytes(db);
+
+        List<MemoryStat> stats = loadStats();
+        report.rowsBefore = stats.size();
+        long now = System.currentTimeMillis();
+
+        List<String> doomed = new ArrayList<>();
+        List<MemoryStat> survivors = mergeDuplicates(stats, doomed);
+        report.mergedRows = doomed.size();
+
+        // Decay importance by age; the least important now go first
+        float[] decayed = new float[survivors.size()];
+        long totalBytes = 0;
+        for (int i = 0; i < survivors.size(); i++) {
+            MemoryStat stat = survivors.get(i);
+            decayed[i] = decayedImportance(stat, now);
+            totalBytes += stat.sizeBytes;
+        }
+        Integer[] order = new Integer[survivors.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        java.util.Arrays.sort(order, (a, b) -> Float.compare(decayed[a], decayed[b]));
+
+        int rows = survivors.size();
+        int evicted = 0;
+        for (int i : order) {
+            boolean belowFloor = decayed[i] < evictionFloor;
+            if (!belowFloor && rows <= maxRows && totalBytes <= maxBytes) break;
+            doomed.add(survivors.get(i).id);
+            totalBytes -= survivors.get(i).sizeBytes;
+            rows--;
+            evicted++;
+        }
+        report.evictedRows = evicted;
+
+        deleteInChunks(doomed);
+        report.rowsAfter = rows;
+
+        vacuum(db);
+        report.bytesAfter = databaseBytes(db);
+
+        if (!doomed.isEmpty()) {
+            Collection<String> ids = Collections.unmodifiableList(doomed);
+            for (Listener listener : listeners) listener.onMemoriesDeleted(ids);
+        }
+        Log.i(TAG, "Compaction: " + report);
+        return report;
+    }
+
+    private List<MemoryStat> loadStats() {
+        List<MemoryStat> stats = new ArrayList<>();
+        for (int offset = 0; ; offset += PAGE_SIZE) {
+            List<MemoryStat> page = memoryDao.getStatsPage(PAGE_SIZE, offset);
+            stats.addAll(page);
+            if (page.size() < PAGE_SIZE) break;
+        }
+        return stats;
+    }
+
+    /**
+     * Keeps the newest memory per normalized user input, carrying over the
+     * highest importance of its group; the others are added to {@code doomed}.
+     */
+    private List<MemoryStat> mergeDuplicates(List<MemoryStat> stats, List<String> doomed) {
+        // stats are oldest first, so later entries replace earlier survivors
+        Map<String, MemoryStat> newest = new HashMap<>();
+        Map<String, Float> maxImportance = new HashMap<>();
+        for (MemoryStat stat : stats) {
+            String key = normalize(stat.userInput);
+            if (key.isEmpty()) key = stat.id;
+            MemoryStat previous = newest.put(key, stat);
+            if (previous != null) doomed.add(previous.id);
+            maxImportance.merge(key, stat.importance, Math::max);
+        }
+        List<MemoryStat> survivors = new ArrayList<>(newest.size());
+        for (Map.Entry<String, MemoryStat> entry : newest.entrySet()) {
+            MemoryStat survivor = entry.getValue();
+            float importance = maxImportance.get(entry.getKey());
+            if (importance > survivor.importance) {
+                memoryDao.updateImportance(survivor.id, importance);
+                survivor.importance = importance;
+            }
+            survivors.add(survivor);
+        }
+        return survivors;
+    }
+
+    private float decayedImportance(MemoryStat stat, long now) {
+        long age = Math.max(0, now - stat.timestamp);
+        return (float) (stat.importance * Math.pow(0.5, (double) age / halfLifeMs));
+    }
+
+    private void deleteInChunks(List<String> ids) {
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK));
+            memoryDao.deleteByIds(chunk);
+            memoryEdgeDao.deleteForMemories(chunk);
+        }
+    }
+
+    /**
+     * Switches the database to incremental auto-vacuum on first run (this needs
+     * one full VACUUM), afterwards only frees the pages left on the freelist.
+     */
+    private void vacuum(SupportSQLiteDatabase db) {
+        try {
+            if (pragmaLong(db, "PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) {
+                db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+                db.execSQL("VACUUM");
+            } else {
+                pragmaLong(db, "PRAGMA incremental_vacuum");
+            }
+            db.execSQL("ANALYZE");
+        } catch (Exception e) {
+            Log.w(TAG, "Vacuum skipped", e);
+        }
+    }
+
+    private static long databaseBytes(SupportSQLiteDatabase db) {
+        return pragmaLong(db, "PRAGMA page_count") * pragmaLong(db, "PRAGMA page_size");
+    }
+
+    private static long pragmaLong(SupportSQLiteDatabase db, String pragma) {
+        try (Cursor cursor = db.query(pragma)) {
+            // incremental_vacuum returns no rows; stepping the cursor is what runs it
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        return text.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+}
@@ -4,6 +4,9 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 import java.util.List;
 
 @Dao
@@ -11,6 +14,10 @@ public interface MemoryDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(MemoryEntity memory);
 
+    // TUBER: One transaction for the whole batch
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<MemoryEntity> memories);
+
     @Query("SELECT * FROM memories ORDER BY timestamp DESC LIMIT :limit")
     List<MemoryEntity> getRecent(int limit);
 
@@ -18,9 +25,71 @@ public interface MemoryDao {
     @Query("SELECT * FROM memories WHERE timestamp > :cutoff OR importance > :threshold ORDER BY importance DESC, timestamp DESC LIMIT :limit")
     List<MemoryEntity> getPrioritizedCandidates(long cutoff, float threshold, int limit);
 
+    @Query("SELECT * FROM memories WHERE id IN (:ids)")
+    List<MemoryEntity> getByIds(List<String> ids);
+
+    @Query("SELECT * FROM memories ORDER BY timestamp ASC LIMIT :limit OFFSET :offset")
+    List<MemoryEntity> getPage(int limit, int offset);
+
+    // TUBER: Served by the FTS4 index in rowid order, paged by the last rowid seen;
+    // every page is ranked with Bm25, so a LIMIT never drops an unscored match
+    @Query("SELECT m.id AS id, memories_fts.rowid AS rowId, matchinfo(memories_fts, 'pcnalx') AS matchInfo "
+            + "FROM memories_fts JOIN memories m ON m.rowid = memories_fts.rowid "
+            + "WHERE memories_fts MATCH :match AND memories_fts.rowid > :afterRowId "
+            + "ORDER BY memories_fts.rowid LIMIT :limit")
+    List<LexicalHit> searchLexical(String match, long afterRowId, int limit);
+
+    @Query("SELECT * FROM memories WHERE embeddingBlob IS NULL AND embeddingJson IS NOT NULL LIMIT :limit")
+    List<MemoryEntity> getLegacyEmbeddingRows(int limit);
+
+    @Update
+    void update(List<MemoryEntity> memories);
+
+    @Query("SELECT COUNT(*) FROM memories")
+    int count();
+
+    // Filtered recall; SQL is built from MemoryFilter
+    @RawQuery
+    List<MemoryEntity> rawQuery(SupportSQLiteQuery query);
+
+    @RawQuery
+    int rawCount(SupportSQLiteQuery query);
+
+    @Query("SELECT COUNT(*) FROM memories WHERE embeddingVersion = :version AND embeddingBlob IS NOT NULL")
+    int countWithEmbeddingVersion(int version);
+
+    @Query("SELECT COUNT(*) FROM memories WHERE embeddingVersion != :version")
+    int countStaleEmbeddings(int version);
+
+    // Resumable by construction: re-embedded rows stop matching
+    @Query("SELECT * FROM memories WHERE embeddingVersion != :version LIMIT :limit")
+    List<MemoryEntity> getStaleEmbeddingRows(int version, int limit);
+
     @Query("DELETE FROM memories WHERE timestamp < :cutoff AND importance < :threshold")
     void deleteOld(long cutoff, float threshold);
 
+    @Query("DELETE FROM memories WHERE id = :id")
+    void deleteById(String id);
+
+    // Keep under SQLite's 999 bound-variable limit
+    @Query("DELETE FROM memories WHERE id IN (:ids)")
+    int deleteByIds(List<String> ids);
+
+    @Query("UPDATE memories SET importance = :importance WHERE id = :id")
+    void updateImportance(String id, float importance);
+
+    // TUBER: Near-duplicate merge; the newer turn's response wins, since answers like the
+    // time or the weather go stale. Returns 0 if the row no longer exists
+    @Query("UPDATE memories SET importance = MIN(1.0, MAX(importance, :importance) + :boost), "
+            + "agentResponse = CASE WHEN :timestamp >= timestamp THEN :agentResponse ELSE agentResponse END, "
+            + "timestamp = MAX(timestamp, :timestamp) WHERE id = :id")
+    int touch(String id, float importance, float boost, long timestamp, String agentResponse);
+
+    @Query("SELECT id, timestamp, importance, userInput, IFNULL(LENGTH(userInput), 0) + IFNULL(LENGTH(agentResponse), 0) "
+            + "+ IFNULL(LENGTH(metadataJson), 0) + IFNULL(LENGTH(embeddingJson), 0) + IFNULL(LENGTH(embeddingBlob), 0) AS sizeBytes "
+            + "FROM memories ORDER BY timestamp ASC LIMIT :limit OFFSET :offset")
+    List<MemoryStat> getStatsPage(int limit, int offset);
+
     @Query("DELETE FROM memories")
     void deleteAll();
 
@@ -0,0 +1,22 @@
+package com.jomra.ai.memory;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface MemoryEdgeDao {
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<MemoryEdgeEntity> edges);
+
+    @Query("SELECT * FROM memory_edges LIMIT :limit OFFSET :offset")
+    List<MemoryEdgeEntity> getPage(int limit, int offset);
+
+    @Query("DELETE FROM memory_edges WHERE sourceId IN (:ids) OR targetId IN (:ids)")
+    void deleteForMemories(List<String> ids);
+
+    @Query("DELETE FROM memory_edges")
+    void deleteAll();
+}
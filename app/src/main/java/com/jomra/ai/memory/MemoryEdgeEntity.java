@@ -0,0 +1,30 @@
+package com.jomra.ai.memory;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * TUBER: Directed relation between two memories. Traversal treats edges as
+ * undirected, so the target index serves reverse lookups.
+ */
+@Entity(tableName = "memory_edges",
+        primaryKeys = {"sourceId", "targetId", "type"},
+        indices = {@Index("targetId")})
+public class MemoryEdgeEntity {
+    @NonNull
+    public String sourceId;
+    @NonNull
+    public String targetId;
+    @NonNull
+    public String type; // MemoryEdgeType name
+    public long createdAt;
+
+    public MemoryEdgeEntity(@NonNull String sourceId, @NonNull String targetId,
+                            @NonNull String type, long createdAt) {
+        this.sourceId = sourceId;
+        this.targetId = targetId;
+        this.type = type;
+        this.createdAt = createdAt;
+    }
+}
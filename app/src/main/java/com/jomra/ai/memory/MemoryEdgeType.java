@@ -0,0 +1,14 @@
+package com.jomra.ai.memory;
+
+/** Relation kinds in the memory graph; the weight scales context reached through the edge. */
+public enum MemoryEdgeType {
+    FOLLOW_UP(0.8f),
+    SAME_ENTITY(0.6f),
+    TOOL_RESULT_OF(0.9f);
+
+    public final float weight;
+
+    MemoryEdgeType(float weight) {
+        this.weight = weight;
+    }
+}
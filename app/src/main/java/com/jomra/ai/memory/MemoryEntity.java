@@ -1,5 +1,6 @@
 package com.jomra.ai.memory;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.Index;
@@ -9,7 +10,8 @@ import androidx.annotation.NonNull;
  * TUBER: Optimized Memory Entity with indices for faster retrieval.
  */
 @Entity(tableName = "memories",
-        indices = {@Index("timestamp"), @Index("importance")})
+        indices = {@Index("timestamp"), @Index("importance"), @Index("embeddingVersion"),
+                   @Index({"category", "timestamp"}), @Index("userFeedback")})
 public class MemoryEntity {
     @PrimaryKey
     @NonNull
@@ -19,10 +21,16 @@ public class MemoryEntity {
     public long timestamp;
     public float importance;
     public String metadataJson; // Store metadata as JSON string
-    public String embeddingJson; // Store embedding as JSON string
+    public String category; // TUBER: Promoted from metadata so filters can use an index
+    public String userFeedback; // TUBER: Promoted from metadata ("user_feedback")
+    public String embeddingJson; // Legacy JSON embedding, cleared once converted
+    public byte[] embeddingBlob; // TUBER: EmbeddingCodec binary embedding
+    @ColumnInfo(defaultValue = "0")
+    public int embeddingVersion; // EmbeddingEngine#getVersion() that produced embeddingBlob; 0 = legacy
 
     public MemoryEntity(@NonNull String id, String userInput, String agentResponse,
-                        long timestamp, float importance, String metadataJson, String embeddingJson) {
+                        long timestamp, float importance, String metadataJson,
+                        String embeddingJson, byte[] embeddingBlob, int embeddingVersion) {
         this.id = id;
         this.userInput = userInput;
         this.agentResponse = agentResponse;
@@ -30,5 +38,7 @@ public class MemoryEntity {
         this.importance = importance;
         this.metadataJson = metadataJson;
         this.embeddingJson = embeddingJson;
+        this.embeddingBlob = embeddingBlob;
+        this.embeddingVersion = embeddingVersion;
     }
 }
@@ -0,0 +1,71 @@
+package com.jomra.ai.memory;
+
+import java.util.List;
+
+/**
+ * Restricts {@link MemorySystem#recall(String, int, MemoryFilter)} to memories
+ * matching every set condition. All conditions map to indexed columns, so
+ * they are evaluated by SQLite rather than after loading rows.
+ */
+public class MemoryFilter {
+    private final Long since;
+    private final Long until;
+    private final Float minImportance;
+    private final String category;
+    private final String userFeedback;
+
+    private MemoryFilter(Builder builder) {
+        this.since = builder.since;
+        this.until = builder.until;
+        this.minImportance = builder.minImportance;
+        this.category = builder.category;
+        this.userFeedback = builder.userFeedback;
+    }
+
+    public boolean isEmpty() {
+        return since == null && until == null && minImportance == null
+                && category == null && userFeedback == null;
+    }
+
+    /** SQL predicate over the memories table; positional arguments are appended to {@code args}. */
+    String toSql(List<Object> args) {
+        StringBuilder sql = new StringBuilder("1");
+        if (category != null) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+        if (userFeedback != null) {
+            sql.append(" AND userFeedback = ?");
+            args.add(userFeedback);
+        }
+        if (since != null) {
+            sql.append(" AND timestamp >= ?");
+            args.add(since);
+        }
+        if (until != null) {
+            sql.append(" AND timestamp < ?");
+            args.add(until);
+        }
+        if (minImportance != null) {
+            sql.append(" AND importance >= ?");
+            args.add(minImportance);
+        }
+        return sql.toString();
+    }
+
+    public static class Builder {
+        private Long since;
+        private Long until;
+        private Float minImportance;
+        private String category;
+        private String userFeedback;
+
+        public Builder since(long timestampMs) { this.since = timestampMs; return this; }
+        public Builder until(long timestampMs) { this.until = timestampMs; return this; }
+        public Builder within(long windowMs) { this.since = System.currentTimeMillis() - windowMs; return this; }
+        public Builder minImportance(float importance) { this.minImportance = importance; return this; }
+        public Builder category(String category) { this.category = category; return this; }
+        public Builder userFeedback(String userFeedback) { this.userFeedback = userFeedback; return this; }
+        public MemoryFilter build() { return new MemoryFilter(this); }
+    }
+}
@@ -0,0 +1,20 @@
+package com.jomra.ai.memory;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * TUBER: External-content FTS4 shadow of {@link MemoryEntity} text columns.
+ * Room keeps it in sync with triggers on the memories table.
+ */
+@Fts4(contentEntity = MemoryEntity.class)
+@Entity(tableName = "memories_fts")
+public class MemoryFtsEntity {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    public int rowId;
+    public String userInput;
+    public String agentResponse;
+}
@@ -0,0 +1,195 @@
+package com.jomra.ai.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BOLT: In-RAM adjacency of the memory graph in compressed sparse row form.
+ *
+ * Edges are stored in both directions as packed ints (node << 2 | type).
+ * New edges land in a delta map and are folded into the CSR arrays once it
+ * holds {@link #DELTA_COMPACT_THRESHOLD} edges or half the CSR size, whichever
+ * is larger, so bulk loading stays linear. Removed nodes are tombstoned;
+ * compaction drops them and renumbers the live nodes densely, and also runs
+ * once tombstones make up half the nodes, so the arrays track the live graph.
+ */
+public class MemoryGraph {
+    private static final int DELTA_COMPACT_THRESHOLD = 1024;
+    private static final MemoryEdgeType[] TYPES = MemoryEdgeType.values();
+
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private final List<String> nodes = new ArrayList<>(); // null once removed
+    private int[] offsets = new int[]{0};
+    private int[] edges = new int[0];
+    private final Map<Integer, List<Integer>> delta = new HashMap<>();
+    private int deltaCount = 0;
+    private int tombstones = 0;
+
+    public synchronized void addEdge(String sourceId, String targetId, MemoryEdgeType type) {
+        if (sourceId.equals(targetId)) return;
+        int source = node(sourceId);
+        int target = node(targetId);
+        delta.computeIfAbsent(source, k -> new ArrayList<>(2)).add(pack(target, type));
+        delta.computeIfAbsent(target, k -> new ArrayList<>(2)).add(pack(source, type));
+        deltaCount += 2;
+        if (deltaCount >= Math.max(DELTA_COMPACT_THRESHOLD, edges.length / 2)) compact();
+    }
+
+    public synchronized void removeNode(String id) {
+        Integer node = nodeIds.remove(id);
+        if (node == null) return;
+        nodes.set(node, null);
+        if (++tombstones >= Math.max(DELTA_COMPACT_THRESHOLD, nodes.size() / 2)) compact();
+    }
+
+    public synchronized void clear() {
+        nodeIds.clear();
+        nodes.clear();
+        offsets = new int[]{0};
+        edges = new int[0];
+        delta.clear();
+        deltaCount = 0;
+        tombstones = 0;
+    }
+
+    public synchronized int getNodeCount() { return nodeIds.size(); }
+
+    /**
+     * Breadth-first expansion from {@code seeds} up to {@code maxHops}. Each
+     * reached memory is scored with the best product of edge weights on a path
+     * from a seed, times that seed's score; seeds themselves are excluded.
+     * Returns at most {@code limit} ids, best first.
+     */
+    public synchronized Map<String, Float> expand(Map<String, Float> seeds, int maxHops, int limit) {
+        Map<Integer, Float> best = new HashMap<>();
+        Map<Integer, Float> frontier = new HashMap<>();
+        for (Map.Entry<String, Float> seed : seeds.entrySet()) {
+            Integer node = nodeIds.get(seed.getKey());
+            if (node != null) frontier.put(node, seed.getValue());
+        }
+        Set<Integer> seedNodes = new HashSet<>(frontier.keySet());
+
+        for (int hop = 0; hop < maxHops && !frontier.isEmpty(); hop++) {
+            Map<Integer, Float> next = new HashMap<>();
+            for (Map.Entry<Integer, Float> entry : frontier.entrySet()) {
+                int node = entry.getKey();
+                float score = entry.getValue();
+                if (node + 1 < offsets.length) {
+                    for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                        relax(edges[e], score, seedNodes, best, next);
+                    }
+                }
+                List<Integer> pending = delta.get(node);
+                if (pending != null) {
+                    for (int edge : pending) relax(edge, score, seedNodes, best, next);
+                }
+            }
+            frontier = next;
+        }
+
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(best.entrySet());
+        ranked.sort((a, b) -> Float.compare(b.getValue(), a.getValue()));
+        Map<String, Float> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Float> entry : ranked) {
+            if (result.size() >= limit) break;
+            result.put(nodes.get(entry.getKey()), entry.getValue());
+        }
+        return result;
+    }
+
+    private void relax(int edge, float score, Set<Integer> seedNodes,
+                       Map<Integer, Float> best, Map<Integer, Float> next) {
+        int neighbor = edge >>> 2;
+        if (nodes.get(neighbor) == null || seedNodes.contains(neighbor)) return;
+        float reached = score * TYPES[edge & 3].weight;
+        Float previous = best.get(neighbor);
+        if (previous != null && previous >= reached) return;
+        best.put(neighbor, reached);
+        next.put(neighbor, reached);
+    }
+
+    /**
+     * Folds the delta into fresh CSR arrays, drops removed nodes and their
+     * edges, and renumbers the live nodes densely in their existing order.
+     */
+    public synchronized void compact() {
+        int n = nodes.size();
+        int oldNodes = offsets.length - 1;
+        int[] remap = new int[n]; // old node -> new node, -1 if removed
+        List<String> live = new ArrayList<>(nodeIds.size());
+        for (int node = 0; node < n; node++) {
+            String id = nodes.get(node);
+            remap[node] = id == null ? -1 : live.size();
+            if (id != null) live.add(id);
+        }
+        int m = live.size();
+        int[] newOffsets = new int[m + 1];
+        for (int node = 0; node < n; node++) {
+            if (remap[node] < 0) continue;
+            int degree = 0;
+            if (node < oldNodes) {
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    if (remap[edges[e] >>> 2] >= 0) degree++;
+                }
+            }
+            List<Integer> pending = delta.get(node);
+            if (pending != null) {
+                for (int edge : pending) {
+                    if (remap[edge >>> 2] >= 0) degree++;
+                }
+            }
+            newOffsets[remap[node] + 1] = degree;
+        }
+        for (int node = 0; node < m; node++) newOffsets[node + 1] += newOffsets[node];
+        int[] newEdges = new int[newOffsets[m]];
+        for (int node = 0; node < n; node++) {
+            if (remap[node] < 0) continue;
+            int from = newOffsets[remap[node]];
+            int cursor = from;
+            if (node < oldNodes) {
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int target = remap[edges[e] >>> 2];
+                    if (target >= 0) newEdges[cursor++] = (target << 2) | (edges[e] & 3);
+                }
+            }
+            List<Integer> pending = delta.get(node);
+            if (pending != null) {
+                for (int edge : pending) {
+                    int target = remap[edge >>> 2];
+                    if (target >= 0) newEdges[cursor++] = (target << 2) | (edge & 3);
+                }
+            }
+            // Duplicate edges (same neighbor and type) are harmless but sorted for locality
+            Arrays.sort(newEdges, from, cursor);
+        }
+        nodes.clear();
+        nodes.addAll(live);
+        nodeIds.clear();
+        for (int node = 0; node < m; node++) nodeIds.put(live.get(node), node);
+        offsets = newOffsets;
+        edges = newEdges;
+        delta.clear();
+        deltaCount = 0;
+        tombstones = 0;
+    }
+
+    private int node(String id) {
+        Integer node = nodeIds.get(id);
+        if (node == null) {
+            node = nodes.size();
+            nodes.add(id);
+            nodeIds.put(id, node);
+        }
+        return node;
+    }
+
+    private static int pack(int node, MemoryEdgeType type) {
+        return (node << 2) | type.ordinal();
+    }
+}
@@ -0,0 +1,10 @@
+package com.jomra.ai.memory;
+
+/** Lightweight projection of a memory row used by {@link MemoryCompactor}. */
+public class MemoryStat {
+    public String id;
+    public long timestamp;
+    public float importance;
+    public String userInput;
+    public long sizeBytes;
+}
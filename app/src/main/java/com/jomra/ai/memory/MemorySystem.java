@@ -2,13 +2,21 @@ package com.jomra.ai.memory;
 
 import android.content.Context;
 import android.util.Log;
+import androidx.sqlite.db.SimpleSQLiteQuery;
 import com.google.gson.Gson;
+import com.jomra.ai.models.ModelManager;
 import com.jomra.ai.storage.AppDatabase;
 import com.jomra.ai.storage.SecureStorage;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 /**
  * Persistent Memory System for Agents.
@@ -17,30 +25,170 @@ public class MemorySystem {
     private static final String TAG = "MemorySystem";
     private static final int SHORT_TERM_CAPACITY = 10;
     private static final float MEMORY_RETENTION_THRESHOLD = 0.3f;
+    private static final int RERANK_FACTOR = 4;
+    private static final int MIN_INDEX_CANDIDATES = 32;
+    private static final int REBUILD_PAGE_SIZE = 500;
+    private static final int LEGACY_MIGRATION_BATCH = 200;
+    private static final byte EMBEDDING_ENCODING = EmbeddingCodec.FLOAT32;
+    private static final long EMBEDDING_CACHE_BYTES = 2L * 1024 * 1024; // ~4k 128-d embeddings
+    private static final int WRITE_QUEUE_CAPACITY = 1024;
+    private static final int WRITE_BATCH_SIZE = 64;
+    private static final long WRITE_MAX_DELAY_MS = 250;
+    private static final int RRF_K = 60;
+    private static final int LEXICAL_PAGE_SIZE = 500;
+    private static final int READ_THREADS = 2;
+    private static final float MERGE_IMPORTANCE_BOOST = 0.05f;
+    private static final String NEAR_DUPLICATE_NAME = "memory_neardup";
+    private static final int FILTER_SCAN_THRESHOLD = 2000; // below this, score every matching row
+    private static final int MAX_BOUND_IDS = 900; // stays under SQLite's 999 bound variables
+    private static final int EDGE_PAGE_SIZE = 2000;
+    private static final int ENTITY_LINK_CAPACITY = 2048;
+    private static final int MAX_ENTITIES_PER_MEMORY = 8;
+    private static final long FOLLOW_UP_WINDOW_MS = 10 * 60 * 1000;
+    private static final int MAX_EXPANSION_HOPS = 3;
+
+    // Rank by combined relevance (70%) and recency (30%)
+    static final float SIMILARITY_WEIGHT = 0.7f;
+    static final float RECENCY_WEIGHT = 0.3f;
+    static final float RECENCY_WINDOW_MS = 30L * 24 * 60 * 60 * 1000f;
+
+    // Completes once the latest shutdown() has saved its files; a new instance loads only after it
+    private static volatile CompletableFuture<Void> lastShutdown = CompletableFuture.completedFuture(null);
 
     private final Context context;
     private final SecureStorage secureStorage;
     private final MemoryDao memoryDao;
+    private final MemoryEdgeDao memoryEdgeDao;
+    private final MemoryGraph memoryGraph = new MemoryGraph(); // TUBER: L3 relational state
+    private final Map<String, String> lastMemoryByEntity; // entity -> newest memory mentioning it
+    private String lastStoredId; // guarded by lastMemoryByEntity
+    private long lastStoredAt;
     private final Queue<MemoryItem> shortTermMemory;
     private final Map<String, Float> userPreferences;
     private final EmbeddingEngine embeddingEngine;
-    private final ExecutorService diskExecutor;
+    private final ScheduledThreadPoolExecutor diskExecutor;
+    private final ExecutorService readExecutor; // Recall off the write path; Room allows parallel readers
+    private final WriteBehindQueue writeQueue; // TUBER: Batches inserts into one transaction each
     private final Gson gson;
-    private final Map<String, float[]> embeddingCache; // BOLT: Cache parsed embeddings
+    private final EmbeddingCache embeddingCache; // BOLT: Bounded cache of decoded embeddings
+    private final RecallCache recallCache = new RecallCache();
+    private final RecallBackend recallBackend;
+    private final VectorIndexStore indexStore; // null for the ARENA backend, which persists itself
+    private final NearDuplicateStore nearDuplicateStore;
+    private volatile VectorIndex vectorIndex; // null until loaded or rebuilt
+    private volatile EmbeddingArena embeddingArena; // ARENA backend only
+    private volatile NearDuplicateIndex nearDuplicates; // null until loaded or rebuilt
+    private volatile int efSearch = HnswIndex.DEFAULT_EF_SEARCH;
+    private final MemoryCompactor.Listener compactionListener = this::onMemoriesCompacted;
+    private final EmbeddingBackfillWorker.Listener backfillListener = this::onMemoriesReembedded;
+
+    /** Candidate generator used by {@link #recall}. */
+    public enum RecallBackend {
+        /** Graph ANN over full-precision vectors; lowest latency. */
+        HNSW,
+        /** Product-quantized codes scanned with lookup tables; ~32x less RAM per vector. */
+        PRODUCT_QUANTIZED,
+        /** Exact parallel scan over a memory-mapped columnar arena; no training, no graph. */
+        ARENA
+    }
 
     public MemorySystem(Context context) {
+        this(context, null, RecallBackend.HNSW);
+    }
+
+    public MemorySystem(Context context, ModelManager modelManager) {
+        this(context, modelManager, RecallBackend.HNSW);
+    }
+
+    /** {@code modelManager} may be null, in which case embeddings use the hashed fallback. */
+    public MemorySystem(Context context, ModelManager modelManager, RecallBackend recallBackend) {
         this.context = context.getApplicationContext();
         this.secureStorage = new SecureStorage(context);
         this.memoryDao = AppDatabase.getDatabase(context).memoryDao();
+        this.memoryEdgeDao = AppDatabase.getDatabase(context).memoryEdgeDao();
+        this.lastMemoryByEntity = new LinkedHashMap<String, String>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > ENTITY_LINK_CAPACITY;
+            }
+        };
         this.shortTermMemory = new LinkedList<>();
         this.userPreferences = new ConcurrentHashMap<>();
-        this.embeddingEngine = new EmbeddingEngine();
-        this.diskExecutor = Executors.newSingleThreadExecutor();
+        this.embeddingEngine = new EmbeddingEngine(modelManager);
+        this.diskExecutor = new ScheduledThreadPoolExecutor(1);
+        this.diskExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.readExecutor = Executors.newFixedThreadPool(READ_THREADS);
+        this.writeQueue = new WriteBehindQueue(diskExecutor, this::writeBatch,
+            WRITE_QUEUE_CAPACITY, WRITE_BATCH_SIZE, WRITE_MAX_DELAY_MS);
         this.gson = new Gson();
-        this.embeddingCache = new ConcurrentHashMap<>();
+        this.embeddingCache = new EmbeddingCache(EMBEDDING_CACHE_BYTES);
+        this.recallBackend = recallBackend;
+        this.indexStore = recallBackend == RecallBackend.ARENA ? null : new VectorIndexStore(
+            indexDirectory(),
+            recallBackend == RecallBackend.HNSW ? "memory_hnsw" : "memory_pq",
+            recallBackend == RecallBackend.HNSW ? HnswIndex.FORMAT : PqIndex.FORMAT);
+        this.nearDuplicateStore = new NearDuplicateStore(indexDirectory(), NEAR_DUPLICATE_NAME);
 
         loadUserPreferences();
+        // An Activity recreated on rotation builds a new instance while the old one is still checkpointing
+        CompletableFuture<Void> previousShutdown = lastShutdown;
+        diskExecutor.execute(previousShutdown::join);
         loadMemoriesFromDisk();
+        migrateLegacyEmbeddings();
+        scheduleEmbeddingBackfill();
+        loadVectorIndex();
+        loadNearDuplicateIndex();
+        loadMemoryGraph();
+        MemoryCompactor.addListener(compactionListener);
+        EmbeddingBackfillWorker.addListener(backfillListener);
+    }
+
+    /**
+     * TUBER: Converts pre-v4 JSON embeddings to binary blobs in small batches,
+     * one transaction each, on the disk executor. Unparseable JSON becomes an
+     * empty blob, so a bad row cannot stop the batches behind it.
+     */
+    private void migrateLegacyEmbeddings() {
+        diskExecutor.execute(() -> {
+            int converted = 0;
+            try {
+                List<MemoryEntity> batch;
+                do {
+                    batch = memoryDao.getLegacyEmbeddingRows(LEGACY_MIGRATION_BATCH);
+                    for (MemoryEntity entity : batch) {
+                        float[] embedding = null;
+                        try {
+                            embedding = gson.fromJson(entity.embeddingJson, float[].class);
+                        } catch (RuntimeException e) {
+                            Log.w(TAG, "Dropping malformed legacy embedding of " + entity.id, e);
+                        }
+                        entity.embeddingBlob = embedding != null
+                            ? EmbeddingCodec.encode(embedding, EMBEDDING_ENCODING) : new byte[0];
+                        entity.embeddingJson = null;
+                    }
+                    if (!batch.isEmpty()) memoryDao.update(batch);
+                    converted += batch.size();
+                } while (batch.size() == LEGACY_MIGRATION_BATCH);
+                if (converted > 0) Log.i(TAG, "Converted " + converted + " legacy embeddings to binary");
+            } catch (Exception e) {
+                Log.e(TAG, "Legacy embedding migration stopped after " + converted + " rows", e);
+            }
+        });
+    }
+
+    /** Stale rows are re-encoded in the background; until then recall scores them lexically. */
+    private void scheduleEmbeddingBackfill() {
+        diskExecutor.execute(() -> {
+            try {
+                int stale = memoryDao.countStaleEmbeddings(embeddingEngine.getVersion());
+                if (stale > 0) {
+                    Log.i(TAG, stale + " memories need re-embedding");
+                    EmbeddingBackfillWorker.schedule(context);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to schedule embedding backfill", e);
+            }
+        });
     }
 
     private void loadMemoriesFromDisk() {
@@ -59,6 +207,220 @@ public class MemorySystem {
         });
     }
 
+    private File indexDirectory() {
+        return context.getDatabasePath(AppDatabase.DATABASE_NAME).getParentFile();
+    }
+
+    private void loadNearDuplicateIndex() {
+        diskExecutor.execute(() -> {
+            int dim = embeddingEngine.getDimension();
+            try {
+                NearDuplicateIndex index = nearDuplicateStore.load(dim);
+                if (index == null || index.size() != memoryDao.count()) {
+                    index = new NearDuplicateIndex(dim);
+                    for (int offset = 0; ; offset += REBUILD_PAGE_SIZE) {
+                        List<MemoryEntity> page = memoryDao.getPage(REBUILD_PAGE_SIZE, offset);
+                        for (MemoryEntity entity : page) {
+                            index.add(entity.id, entity.userInput, decodeEmbedding(entity));
+                        }
+                        if (page.size() < REBUILD_PAGE_SIZE) break;
+                    }
+                    nearDuplicateStore.reset();
+                    nearDuplicateStore.checkpoint(index);
+                }
+                nearDuplicates = index;
+            } catch (Exception e) {
+                Log.e(TAG, "Near-duplicate detection unavailable", e);
+            }
+        });
+    }
+
+    private void loadMemoryGraph() {
+        diskExecutor.execute(() -> {
+            try {
+                for (int offset = 0; ; offset += EDGE_PAGE_SIZE) {
+                    List<MemoryEdgeEntity> page = memoryEdgeDao.getPage(EDGE_PAGE_SIZE, offset);
+                    for (MemoryEdgeEntity edge : page) {
+                        try {
+                            memoryGraph.addEdge(edge.sourceId, edge.targetId, MemoryEdgeType.valueOf(edge.type));
+                        } catch (IllegalArgumentException e) {
+                            // Edge type from a newer build; ignore
+                        }
+                    }
+                    if (page.size() < EDGE_PAGE_SIZE) break;
+                }
+                memoryGraph.compact();
+            } catch (Exception e) {
+                Log.e(TAG, "Memory graph unavailable, recallExpanded returns seeds only", e);
+            }
+        });
+    }
+
+    /**
+     * Journals {@code id}'s current near-duplicate fingerprints (or their
+     * absence). Must run on the disk executor, after the row change committed.
+     */
+    private void persistNearDuplicate(NearDuplicateIndex dedup, String id) {
+        try {
+            nearDuplicateStore.append(dedup, id);
+            if (nearDuplicateStore.needsCheckpoint()) nearDuplicateStore.checkpoint(dedup);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to persist near-duplicate index update", e);
+        }
+    }
+
+    private void loadVectorIndex() {
+        if (recallBackend == RecallBackend.ARENA) {
+            loadEmbeddingArena();
+            return;
+        }
+        diskExecutor.execute(() -> {
+            try {
+                int dim = embeddingEngine.getDimension();
+                VectorIndex index = indexStore.load(dim);
+                // Zero-norm embeddings are stored but never indexed
+                if (index == null || index.size() + index.getRejectedCount()
+                        != memoryDao.countWithEmbeddingVersion(embeddingEngine.getVersion())) {
+                    index = rebuildVectorIndex(dim);
+                }
+                if (index instanceof HnswIndex) ((HnswIndex) index).setEfSearch(efSearch);
+                vectorIndex = index;
+            } catch (Exception e) {
+                Log.e(TAG, "Vector index unavailable, recall falls back to candidate scan", e);
+            }
+        });
+    }
+
+    private void loadEmbeddingArena() {
+        diskExecutor.execute(() -> {
+            try {
+                EmbeddingArena arena = EmbeddingArena.open(
+                    new File(indexDirectory(), "memory_arena"), embeddingEngine.getDimension());
+                if (arena.size() != memoryDao.countWithEmbeddingVersion(embeddingEngine.getVersion())) {
+                    arena.clear();
+                    for (int offset = 0; ; offset += REBUILD_PAGE_SIZE) {
+                        List<MemoryEntity> page = memoryDao.getPage(REBUILD_PAGE_SIZE, offset);
+                        for (MemoryEntity entity : page) {
+                            float[] embedding = decodeEmbedding(entity);
+                            if (embedding != null) {
+                                arena.append(entity.id, embedding, entity.timestamp);
+                            }
+                        }
+                        if (page.size() < REBUILD_PAGE_SIZE) break;
+                    }
+                    Log.i(TAG, "Rebuilt embedding arena with " + arena.size() + " memories");
+                }
+                embeddingArena = arena;
+            } catch (Exception e) {
+                Log.e(TAG, "Embedding arena unavailable, recall falls back to candidate scan", e);
+            }
+        });
+    }
+
+    /** Must run on the disk executor; a failed rewrite leaves the arena empty, so it is rebuilt. */
+    private void compactArena(EmbeddingArena arena) {
+        try {
+            if (arena.compactIfSparse()) Log.i(TAG, "Compacted embedding arena to " + arena.size() + " rows");
+        } catch (IOException e) {
+            Log.w(TAG, "Embedding arena compaction failed, rebuilding", e);
+            embeddingArena = null;
+            loadEmbeddingArena();
+        }
+    }
+
+    private VectorIndex rebuildVectorIndex(int dim) throws IOException {
+        VectorIndex index;
+        if (recallBackend == RecallBackend.PRODUCT_QUANTIZED) {
+            PqIndex pqIndex = new PqIndex(dim, PqIndex.DEFAULT_SUBSPACES);
+            List<float[]> samples = new ArrayList<>();
+            int corpusSize = sampleEmbeddings(PqIndex.MAX_TRAINING_SAMPLES, samples);
+            pqIndex.train(samples, corpusSize);
+            index = pqIndex;
+        } else {
+            index = new HnswIndex(dim);
+        }
+        for (int offset = 0; ; offset += REBUILD_PAGE_SIZE) {
+            List<MemoryEntity> page = memoryDao.getPage(REBUILD_PAGE_SIZE, offset);
+            for (MemoryEntity entity : page) {
+                float[] embedding = decodeEmbedding(entity);
+                if (embedding != null) index.add(entity.id, embedding);
+            }
+            if (page.size() < REBUILD_PAGE_SIZE) break;
+        }
+        indexStore.reset();
+        indexStore.checkpoint(index);
+        Log.i(TAG, "Rebuilt vector index with " + index.size() + " memories");
+        return index;
+    }
+
+    /**
+     * Reservoir-samples stored embeddings into {@code samples} for on-device
+     * codebook training; returns how many embeddings were seen.
+     */
+    private int sampleEmbeddings(int maxSamples, List<float[]> samples) {
+        Random random = new Random();
+        int seen = 0;
+        for (int offset = 0; ; offset += REBUILD_PAGE_SIZE) {
+            List<MemoryEntity> page = memoryDao.getPage(REBUILD_PAGE_SIZE, offset);
+            for (MemoryEntity entity : page) {
+                float[] embedding = decodeEmbedding(entity);
+                if (embedding == null) continue;
+                seen++;
+                if (samples.size() < maxSamples) {
+                    samples.add(embedding);
+                } else {
+                    int slot = random.nextInt(seen);
+                    if (slot < maxSamples) samples.set(slot, embedding);
+                }
+            }
+            if (page.size() < REBUILD_PAGE_SIZE) break;
+        }
+        return seen;
+    }
+
+    private void indexMemory(MemoryItem item) {
+        EmbeddingArena arena = embeddingArena;
+        if (arena != null && item.embedding != null) {
+            try {
+                arena.append(item.id, item.embedding, item.timestamp); // Tombstones a replaced row
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to append to embedding arena", e);
+            }
+            compactArena(arena);
+            return;
+        }
+        VectorIndex index = vectorIndex;
+        if (index == null || item.embedding == null) return;
+        index.add(item.id, item.embedding);
+        try {
+            if (index instanceof PqIndex && ((PqIndex) index).needsRetraining()) {
+                // Corpus outgrew the codebooks; retrain from the stored corpus
+                vectorIndex = rebuildVectorIndex(index.getDimension());
+                return;
+            }
+            indexStore.appendAdd(item.id, item.embedding);
+            if (indexStore.needsCheckpoint()) checkpointIndex(index);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to persist vector index update", e);
+        }
+    }
+
+    /** Snapshots the index, first reclaiming PQ slots left behind by removals and re-adds. */
+    private void checkpointIndex(VectorIndex index) throws IOException {
+        if (index instanceof PqIndex) ((PqIndex) index).compactIfSparse();
+        indexStore.checkpoint(index);
+    }
+
+    /**
+     * Recall/latency knob for the ANN index: higher values search more of the
+     * graph. Defaults to {@link HnswIndex#DEFAULT_EF_SEARCH}.
+     */
+    public void setRecallEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+        VectorIndex index = vectorIndex;
+        if (index instanceof HnswIndex) ((HnswIndex) index).setEfSearch(efSearch);
+    }
+
     public void remember(String userInput, String agentResponse,
                         float importance, Map<String, Object> metadata) {
 
@@ -70,7 +432,7 @@ public class MemorySystem {
             importance,
             metadata
         );
-        item.embedding = embeddingEngine.encode(userInput);
+        item.embedding = embeddingEngine.encode(userInput); // null if the encoder failed; backfilled later
 
         synchronized (shortTermMemory) {
             shortTermMemory.offer(item);
@@ -79,21 +441,198 @@ public class MemorySystem {
             }
         }
 
+        // Cached recalls stay valid until the write commits; writeBatch and mergeInto invalidate them
         if (importance > MEMORY_RETENTION_THRESHOLD) {
-            diskExecutor.execute(() -> memoryDao.insert(itemToEntity(item)));
+            NearDuplicateIndex dedup = nearDuplicates;
+            String duplicateOf = dedup != null ? dedup.findDuplicate(userInput, item.embedding) : null;
+            if (duplicateOf != null) {
+                // TUBER: Refresh the existing memory instead of storing a near-copy
+                mergeInto(duplicateOf, item);
+            } else {
+                if (dedup != null) dedup.add(item.id, userInput, item.embedding);
+                writeQueue.enqueue(item);
+            }
+            linkMemory(duplicateOf != null ? duplicateOf : item.id, item);
         }
 
         updatePreferences(item);
     }
 
+    /**
+     * Connects a stored memory to the previous one (follow-up within
+     * {@link #FOLLOW_UP_WINDOW_MS}), to the newest memory sharing an entity, and
+     * to the memory named by the {@code tool_result_of} metadata key.
+     */
+    private void linkMemory(String id, MemoryItem item) {
+        List<MemoryEdgeEntity> edges = new ArrayList<>();
+        Object toolSource = item.metadata.get("tool_result_of");
+        if (toolSource instanceof String) {
+            edges.add(new MemoryEdgeEntity((String) toolSource, id, MemoryEdgeType.TOOL_RESULT_OF.name(), item.timestamp));
+        }
+        Set<String> entities = extractEntities(item.userInput, item.metadata.get("entities"));
+        synchronized (lastMemoryByEntity) {
+            if (lastStoredId != null && item.timestamp - lastStoredAt <= FOLLOW_UP_WINDOW_MS) {
+                edges.add(new MemoryEdgeEntity(lastStoredId, id, MemoryEdgeType.FOLLOW_UP.name(), item.timestamp));
+            }
+            lastStoredId = id;
+            lastStoredAt = item.timestamp;
+            for (String entity : entities) {
+                String previous = lastMemoryByEntity.put(entity, id);
+                if (previous != null) {
+                    edges.add(new MemoryEdgeEntity(previous, id, MemoryEdgeType.SAME_ENTITY.name(), item.timestamp));
+                }
+            }
+        }
+        edges.removeIf(edge -> edge.sourceId.equals(edge.targetId));
+        if (edges.isEmpty()) return;
+        for (MemoryEdgeEntity edge : edges) {
+            memoryGraph.addEdge(edge.sourceId, edge.targetId, MemoryEdgeType.valueOf(edge.type));
+        }
+        diskExecutor.execute(() -> {
+            try {
+                memoryEdgeDao.insertAll(edges);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to persist " + edges.size() + " memory edges", e);
+            }
+        });
+    }
+
+    /**
+     * Entities declared in metadata plus identifier-like tokens (containing a
+     * digit) and capitalized words that do not start a sentence.
+     */
+    static Set<String> extractEntities(String text, Object declared) {
+        Set<String> entities = new LinkedHashSet<>();
+        if (declared instanceof Collection) {
+            for (Object entity : (Collection<?>) declared) {
+                if (entity != null) entities.add(entity.toString().toLowerCase());
+            }
+        } else if (declared instanceof String) {
+            entities.add(((String) declared).toLowerCase());
+        }
+        if (text == null) return entities;
+        boolean sentenceStart = true;
+        for (String token : text.split("\\s+")) {
+            if (entities.size() >= MAX_ENTITIES_PER_MEMORY) break;
+            String word = token.replaceAll("^[^\\p{L}\\p{N}]+|[^\\p{L}\\p{N}]+$", "");
+            if (word.length() >= 3) {
+                boolean identifier = word.chars().anyMatch(Character::isDigit);
+                boolean properNoun = !sentenceStart && Character.isUpperCase(word.charAt(0));
+                if (identifier || properNoun) entities.add(word.toLowerCase());
+            }
+            sentenceStart = token.endsWith(".") || token.endsWith("!") || token.endsWith("?");
+        }
+        return entities;
+    }
+
+    private void mergeInto(String existingId, MemoryItem item) {
+        diskExecutor.execute(() -> {
+            writeQueue.drain(); // The original may still be queued
+            if (memoryDao.touch(existingId, item.importance, MERGE_IMPORTANCE_BOOST,
+                    item.timestamp, item.agentResponse) == 0) {
+                // Original was deleted meanwhile; store this one after all
+                NearDuplicateIndex dedup = nearDuplicates;
+                if (dedup != null) dedup.add(item.id, item.userInput, item.embedding);
+                writeBatch(Collections.singletonList(item));
+                return;
+            }
+            EmbeddingArena arena = embeddingArena;
+            if (arena != null) arena.touch(existingId, item.timestamp);
+            recallCache.bumpGeneration();
+        });
+    }
+
+    /** Runs on the disk executor; the index is only updated once the batch has committed. */
+    private void writeBatch(List<MemoryItem> batch) {
+        List<MemoryEntity> entities = new ArrayList<>(batch.size());
+        for (MemoryItem item : batch) entities.add(itemToEntity(item));
+        memoryDao.insertAll(entities);
+        NearDuplicateIndex dedup = nearDuplicates;
+        boolean unencoded = false;
+        for (MemoryItem item : batch) {
+            indexMemory(item);
+            if (dedup != null) {
+                // Remembered while the index was still loading
+                if (dedup.getFingerprints(item.id) == null) dedup.add(item.id, item.userInput, item.embedding);
+                persistNearDuplicate(dedup, item.id);
+            }
+            if (item.embedding == null) unencoded = true;
+        }
+        // After indexing, so no recall can cache a result that misses this batch
+        recallCache.bumpGeneration();
+        if (unencoded) EmbeddingBackfillWorker.schedule(context);
+    }
+
+    /** Completes once every memory remembered before this call is durable. */
+    public CompletableFuture<Void> flush() {
+        return writeQueue.flush();
+    }
+
+    /**
+     * {@link #recall} on the read pool, so callers can overlap retrieval with
+     * other work. Cancelling the returned future interrupts a running recall
+     * or drops a queued one.
+     */
+    public CompletableFuture<List<MemoryItem>> recallAsync(String query, int topK) {
+        return submitRecall(() -> recall(query, topK));
+    }
+
+    /** {@link #recallExpanded} on the read pool; cancellable like {@link #recallAsync}. */
+    public CompletableFuture<List<MemoryItem>> recallExpandedAsync(String query, int topK, int maxHops) {
+        return submitRecall(() -> recallExpanded(query, topK, maxHops));
+    }
+
+    private CompletableFuture<List<MemoryItem>> submitRecall(Callable<List<MemoryItem>> recall) {
+        CompletableFuture<List<MemoryItem>> result = new CompletableFuture<>();
+        Future<?> task = readExecutor.submit(() -> {
+            try {
+                result.complete(recall.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((items, error) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
     // BOLT: Optimize memory retrieval - Expected: -80% recall latency
     public List<MemoryItem> recall(String query, int topK) {
+        long generation = recallCache.getGeneration();
+        List<MemoryItem> cached = recallCache.get(query, topK);
+        if (cached != null) return cached;
+        List<MemoryItem> results = recallUncached(query, topK);
+        // An interrupted recall returns a partial (empty) result; never cache it
+        if (!Thread.currentThread().isInterrupted()) {
+            recallCache.put(query, topK, generation, results);
+        }
+        return results;
+    }
+
+    private List<MemoryItem> recallUncached(String query, int topK) {
         List<MemoryItem> candidates = new ArrayList<>();
+        float[] queryEmbedding = embeddingEngine.encode(query);
 
         try {
-            // BOLT: Load only prioritized candidates - Expected: -70% DB load
-            long cutoff = System.currentTimeMillis() - (7L * 24 * 60 * 60 * 1000); // 7 days
-            List<MemoryEntity> entities = memoryDao.getPrioritizedCandidates(cutoff, 0.7f, 100);
+            EmbeddingArena arena = embeddingArena;
+            VectorIndex index = vectorIndex;
+            List<MemoryEntity> entities;
+            if (queryEmbedding == null) {
+                // Encoder failed; rank the prioritized candidates by word overlap
+                long cutoff = System.currentTimeMillis() - (7L * 24 * 60 * 60 * 1000); // 7 days
+                entities = memoryDao.getPrioritizedCandidates(cutoff, 0.7f, 100);
+            } else if (arena != null) {
+                // BOLT: Arena scan already ranks by the final score; fetch only the top-K rows
+                entities = fetchRows(arena.search(queryEmbedding, topK, System.currentTimeMillis()));
+            } else if (index != null) {
+                // BOLT: Index candidates from the whole store, re-ranked exactly below
+                entities = fetchIndexedCandidates(index, queryEmbedding, topK);
+            } else {
+                // BOLT: Load only prioritized candidates - Expected: -70% DB load
+                long cutoff = System.currentTimeMillis() - (7L * 24 * 60 * 60 * 1000); // 7 days
+                entities = memoryDao.getPrioritizedCandidates(cutoff, 0.7f, 100);
+            }
             for (MemoryEntity entity : entities) {
                 candidates.add(entityToItem(entity));
             }
@@ -101,24 +640,194 @@ public class MemorySystem {
             Log.e(TAG, "Recall DB fetch failed", e);
         }
 
-        if (candidates.isEmpty()) return Collections.emptyList();
+        return rank(query, queryEmbedding, candidates, topK);
+    }
 
+    /**
+     * Recall restricted to memories matching {@code filter}. The filter runs in
+     * SQLite: small matching sets are scored exhaustively, larger ones are
+     * narrowed by the vector index first (over-fetching by the filter's
+     * selectivity) and then filtered on the candidate ids.
+     */
+    public List<MemoryItem> recall(String query, int topK, MemoryFilter filter) {
+        if (filter == null || filter.isEmpty()) return recall(query, topK);
         float[] queryEmbedding = embeddingEngine.encode(query);
+        List<MemoryItem> candidates = new ArrayList<>();
+        try {
+            List<Object> args = new ArrayList<>();
+            String where = filter.toSql(args);
+            int matching = memoryDao.rawCount(new SimpleSQLiteQuery(
+                "SELECT COUNT(*) FROM memories WHERE " + where, args.toArray()));
+            if (matching == 0) return Collections.emptyList();
+
+            VectorIndex index = vectorIndex;
+            EmbeddingArena arena = embeddingArena;
+            List<VectorIndex.Hit> hits = null;
+            if (matching > FILTER_SCAN_THRESHOLD && queryEmbedding != null && (index != null || arena != null)) {
+                int total = Math.max(matching, memoryDao.count());
+                long k = (long) Math.max(topK * RERANK_FACTOR, MIN_INDEX_CANDIDATES) * total / matching;
+                int fetch = (int) Math.min(MAX_BOUND_IDS, k);
+                hits = arena != null
+                    ? arena.search(queryEmbedding, fetch, System.currentTimeMillis())
+                    : index.search(queryEmbedding, fetch);
+            }
+
+            List<MemoryEntity> entities;
+            if (hits == null) {
+                // Without a query embedding, score the newest matching rows by word overlap
+                String limit = queryEmbedding == null && matching > FILTER_SCAN_THRESHOLD
+                    ? " ORDER BY timestamp DESC LIMIT " + FILTER_SCAN_THRESHOLD : "";
+                entities = memoryDao.rawQuery(new SimpleSQLiteQuery(
+                    "SELECT * FROM memories WHERE " + where + limit, args.toArray()));
+            } else {
+                if (hits.isEmpty()) return Collections.emptyList();
+                List<Object> idArgs = new ArrayList<>(hits.size() + args.size());
+                StringBuilder placeholders = new StringBuilder();
+                for (VectorIndex.Hit hit : hits) {
+                    placeholders.append(placeholders.length() == 0 ? "?" : ",?");
+                    idArgs.add(hit.id);
+                }
+                idArgs.addAll(args);
+                entities = memoryDao.rawQuery(new SimpleSQLiteQuery(
+                    "SELECT * FROM memories WHERE id IN (" + placeholders + ") AND " + where, idArgs.toArray()));
+            }
+            for (MemoryEntity entity : entities) {
+                candidates.add(entityToItem(entity));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Filtered recall DB fetch failed", e);
+        }
+        return rank(query, queryEmbedding, candidates, topK);
+    }
+
+    /**
+     * Recall for several queries at once: one embedding batch, one candidate
+     * fetch and decode for the union of candidates, then a query x candidate
+     * score matrix with a top-K heap per query. Results are in query order;
+     * items are per-query copies, so their scores do not clash. Meant for
+     * callers holding several distinct queries at once; repeats of one query
+     * within a turn are served by the recall cache instead (see {@link #recall}).
+     */
+    public List<List<MemoryItem>> recallBatch(List<String> queries, int topK) {
+        int n = queries.size();
+        List<List<MemoryItem>> results = new ArrayList<>(n);
+        if (n == 0) return results;
+        if (topK <= 0) {
+            for (int q = 0; q < n; q++) results.add(new ArrayList<>());
+            return results;
+        }
+        float[][] queryEmbeddings = embeddingEngine.encodeBatch(queries).toArray(new float[0][]);
+
+        List<MemoryItem> candidates = new ArrayList<>();
+        try {
+            EmbeddingArena arena = embeddingArena;
+            VectorIndex index = vectorIndex;
+            List<MemoryEntity> entities;
+            boolean encoded = !Arrays.asList(queryEmbeddings).contains(null);
+            if (encoded && (arena != null || index != null)) {
+                Set<String> ids = new LinkedHashSet<>();
+                if (arena != null) {
+                    for (List<VectorIndex.Hit> hits : arena.searchBatch(queryEmbeddings, topK, System.currentTimeMillis())) {
+                        for (VectorIndex.Hit hit : hits) ids.add(hit.id);
+                    }
+                } else {
+                    int k = Math.max(topK * RERANK_FACTOR, MIN_INDEX_CANDIDATES);
+                    for (float[] queryEmbedding : queryEmbeddings) {
+                        for (VectorIndex.Hit hit : index.search(queryEmbedding, k)) ids.add(hit.id);
+                    }
+                }
+                entities = fetchByIds(new ArrayList<>(ids));
+            } else {
+                // No index yet, or the encoder failed: word overlap scores what the vectors cannot
+                long cutoff = System.currentTimeMillis() - (7L * 24 * 60 * 60 * 1000); // 7 days
+                entities = memoryDao.getPrioritizedCandidates(cutoff, 0.7f, 100);
+            }
+            for (MemoryEntity entity : entities) {
+                candidates.add(entityToItem(entity));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Batch recall DB fetch failed", e);
+        }
+
+        float[] queryNorms = new float[n];
+        for (int q = 0; q < n; q++) {
+            if (queryEmbeddings[q] == null) continue;
+            for (float v : queryEmbeddings[q]) queryNorms[q] += v * v;
+        }
+        List<Set<String>> queryWords = new ArrayList<>(Collections.nCopies(n, (Set<String>) null));
+        TopKHeap[] heaps = new TopKHeap[n];
+        for (int q = 0; q < n; q++) heaps[q] = new TopKHeap(topK);
+
+        long now = System.currentTimeMillis();
+        for (int c = 0; c < candidates.size(); c++) {
+            MemoryItem item = candidates.get(c);
+            float recency = Math.max(0, 1.0f - (now - item.timestamp) / RECENCY_WINDOW_MS) * RECENCY_WEIGHT;
+            for (int q = 0; q < n; q++) {
+                float similarity;
+                if (item.embedding != null && queryEmbeddings[q] != null) {
+                    similarity = cosineSimilarityWithNorm(queryEmbeddings[q], item.embedding, queryNorms[q]);
+                } else {
+                    if (queryWords.get(q) == null) queryWords.set(q, words(queries.get(q)));
+                    similarity = wordOverlap(queryWords.get(q), item.userInput);
+                }
+                heaps[q].offer(similarity * SIMILARITY_WEIGHT + recency, c);
+            }
+        }
+
+        int[] slots = new int[topK];
+        float[] scores = new float[topK];
+        for (int q = 0; q < n; q++) {
+            int count = heaps[q].drainDescending(slots, scores);
+            List<MemoryItem> ranked = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                MemoryItem source = candidates.get(slots[i]);
+                MemoryItem copy = new MemoryItem(source.id, source.userInput, source.agentResponse,
+                    source.timestamp, source.importance, source.metadata);
+                copy.embedding = source.embedding;
+                copy.relevanceScore = scores[i];
+                ranked.add(copy);
+            }
+            results.add(ranked);
+        }
+        return results;
+    }
+
+    /** getByIds in chunks that stay under SQLite's bound-variable limit. */
+    private List<MemoryEntity> fetchByIds(List<String> ids) {
+        if (ids.size() <= MAX_BOUND_IDS) return memoryDao.getByIds(ids);
+        List<MemoryEntity> entities = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += MAX_BOUND_IDS) {
+            entities.addAll(memoryDao.getByIds(ids.subList(from, Math.min(ids.size(), from + MAX_BOUND_IDS))));
+        }
+        return entities;
+    }
+
+    /** Scores {@code candidates} in place and returns the best {@code topK}. */
+    private List<MemoryItem> rank(String query, float[] queryEmbedding, List<MemoryItem> candidates, int topK) {
+        // Cancelled via recallAsync; skip the scoring pass
+        if (candidates.isEmpty() || Thread.currentThread().isInterrupted()) return Collections.emptyList();
+
         // BOLT: Pre-calculate query norm - Expected: -50% Math overhead
         float queryNorm = 0;
-        for (float v : queryEmbedding) queryNorm += v * v;
+        if (queryEmbedding != null) {
+            for (float v : queryEmbedding) queryNorm += v * v;
+        }
 
         long now = System.currentTimeMillis();
 
+        Set<String> queryWords = null;
         for (MemoryItem item : candidates) {
-            if (item.embedding != null) {
+            float similarity;
+            if (item.embedding != null && queryEmbedding != null) {
                 // BOLT: Use optimized similarity with pre-calculated norm
-                float similarity = cosineSimilarityWithNorm(queryEmbedding, item.embedding, queryNorm);
-
-                // Rank by combined relevance (70%) and recency (30%)
-                float recencyFactor = Math.max(0, 1.0f - (now - item.timestamp) / (30L * 24 * 60 * 60 * 1000f));
-                item.relevanceScore = similarity * 0.7f + recencyFactor * 0.3f;
+                similarity = cosineSimilarityWithNorm(queryEmbedding, item.embedding, queryNorm);
+            } else {
+                // Not yet re-embedded for the current model, or the encoder failed: word overlap
+                if (queryWords == null) queryWords = words(query);
+                similarity = wordOverlap(queryWords, item.userInput);
             }
+            float recencyFactor = Math.max(0, 1.0f - (now - item.timestamp) / RECENCY_WINDOW_MS);
+            item.relevanceScore = similarity * SIMILARITY_WEIGHT + recencyFactor * RECENCY_WEIGHT;
         }
 
         Collections.sort(candidates, (a, b) -> Float.compare(b.relevanceScore, a.relevanceScore));
@@ -126,19 +835,195 @@ public class MemorySystem {
         return candidates.subList(0, Math.min(topK, candidates.size()));
     }
 
+    /**
+     * Hybrid recall: BM25 over the FTS4 index runs on the read pool while the
+     * vector path runs on the caller; the rankings are fused with reciprocal-rank
+     * fusion, so exact keywords (names, ids, error codes) surface even when
+     * their embeddings are not close.
+     */
+    public List<MemoryItem> recallHybrid(String query, int topK) {
+        int depth = Math.max(topK * RERANK_FACTOR, MIN_INDEX_CANDIDATES);
+        CompletableFuture<List<String>> lexicalFuture =
+            CompletableFuture.supplyAsync(() -> lexicalSearch(query, depth), readExecutor);
+        // Uncached: relevanceScore is overwritten with the fused score below
+        List<MemoryItem> vectorRanked = recallUncached(query, depth);
+
+        List<String> lexicalRanked;
+        try {
+            lexicalRanked = lexicalFuture.get();
+        } catch (Exception e) {
+            Log.w(TAG, "Lexical recall failed, using vector results only", e);
+            lexicalRanked = Collections.emptyList();
+        }
+        if (lexicalRanked.isEmpty()) {
+            return vectorRanked.subList(0, Math.min(topK, vectorRanked.size()));
+        }
+
+        Map<String, Float> fused = new HashMap<>();
+        Map<String, MemoryItem> items = new HashMap<>();
+        for (int rank = 0; rank < vectorRanked.size(); rank++) {
+            MemoryItem item = vectorRanked.get(rank);
+            items.put(item.id, item);
+            fused.merge(item.id, 1f / (RRF_K + rank + 1), Float::sum);
+        }
+        for (int rank = 0; rank < lexicalRanked.size(); rank++) {
+            fused.merge(lexicalRanked.get(rank), 1f / (RRF_K + rank + 1), Float::sum);
+        }
+        List<String> ranked = new ArrayList<>(fused.keySet());
+        Collections.sort(ranked, (a, b) -> Float.compare(fused.get(b), fused.get(a)));
+        ranked = ranked.subList(0, Math.min(topK, ranked.size()));
+
+        List<String> missing = new ArrayList<>();
+        for (String id : ranked) {
+            if (!items.containsKey(id)) missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            try {
+                for (MemoryEntity entity : memoryDao.getByIds(missing)) {
+                    items.put(entity.id, entityToItem(entity));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Recall DB fetch failed", e);
+            }
+        }
+
+        List<MemoryItem> results = new ArrayList<>(ranked.size());
+        for (String id : ranked) {
+            MemoryItem item = items.get(id);
+            if (item == null) continue;
+            item.relevanceScore = fused.get(id);
+            results.add(item);
+        }
+        return results;
+    }
+
+    /**
+     * {@link #recall} seeds plus memories reached from them through the memory
+     * graph within {@code maxHops} (capped at {@link #MAX_EXPANSION_HOPS}).
+     * Seeds come first; up to {@code topK} related memories follow, scored by
+     * the seed score times the edge weights on the path. Expansion only walks
+     * the in-RAM adjacency, so it costs no further similarity scans.
+     */
+    public List<MemoryItem> recallExpanded(String query, int topK, int maxHops) {
+        List<MemoryItem> seeds = recall(query, topK);
+        if (seeds.isEmpty() || maxHops <= 0) return seeds;
+        Map<String, Float> seedScores = new LinkedHashMap<>();
+        for (MemoryItem seed : seeds) seedScores.put(seed.id, seed.relevanceScore);
+        Map<String, Float> related = memoryGraph.expand(
+            seedScores, Math.min(maxHops, MAX_EXPANSION_HOPS), topK);
+        if (related.isEmpty()) return seeds;
+
+        Map<String, MemoryItem> byId = new HashMap<>();
+        // Neighbours may still be in the write-behind queue
+        synchronized (shortTermMemory) {
+            for (MemoryItem item : shortTermMemory) {
+                if (related.containsKey(item.id)) byId.put(item.id, item);
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (String id : related.keySet()) {
+            if (!byId.containsKey(id)) missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            for (MemoryEntity entity : fetchByIds(missing)) byId.put(entity.id, entityToItem(entity));
+        }
+
+        List<MemoryItem> results = new ArrayList<>(seeds);
+        for (Map.Entry<String, Float> entry : related.entrySet()) {
+            MemoryItem source = byId.get(entry.getKey());
+            if (source == null) continue;
+            // Short-term items are shared; score a copy
+            MemoryItem item = new MemoryItem(source.id, source.userInput, source.agentResponse,
+                source.timestamp, source.importance, source.metadata);
+            item.embedding = source.embedding;
+            item.relevanceScore = entry.getValue();
+            results.add(item);
+        }
+        return results;
+    }
+
+    /**
+     * Ids of the best {@code limit} FTS4 matches by BM25, best first. Every
+     * match is scored, a page at a time, so the best keyword hit is never cut
+     * before ranking.
+     */
+    private List<String> lexicalSearch(String query, int limit) {
+        String match = Bm25.toMatchQuery(query);
+        if (match == null || limit <= 0) return Collections.emptyList();
+        TopKHeap heap = new TopKHeap(limit);
+        List<String> kept = new ArrayList<>(); // heap slot -> id; only ids that entered the heap
+        long afterRowId = Long.MIN_VALUE;
+        List<LexicalHit> page;
+        do {
+            if (Thread.currentThread().isInterrupted()) break;
+            page = memoryDao.searchLexical(match, afterRowId, LEXICAL_PAGE_SIZE);
+            for (LexicalHit hit : page) {
+                float score = Bm25.score(hit.matchInfo);
+                if (score > heap.threshold()) {
+                    heap.offer(score, kept.size());
+                    kept.add(hit.id);
+                }
+            }
+            if (!page.isEmpty()) afterRowId = page.get(page.size() - 1).rowId;
+        } while (page.size() == LEXICAL_PAGE_SIZE);
+
+        int[] slots = new int[limit];
+        int count = heap.drainDescending(slots, null);
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) ids.add(kept.get(slots[i]));
+        return ids;
+    }
+
+    private List<MemoryEntity> fetchIndexedCandidates(VectorIndex index, float[] queryEmbedding, int topK) {
+        // Over-fetch so exact cosine and the recency blend below can reorder the final top-K
+        int k = Math.max(topK * RERANK_FACTOR, MIN_INDEX_CANDIDATES);
+        return fetchRows(index.search(queryEmbedding, k));
+    }
+
+    private List<MemoryEntity> fetchRows(List<VectorIndex.Hit> hits) {
+        if (hits.isEmpty()) return Collections.emptyList();
+        List<String> ids = new ArrayList<>(hits.size());
+        for (VectorIndex.Hit hit : hits) ids.add(hit.id);
+        return memoryDao.getByIds(ids);
+    }
+
     private MemoryEntity itemToEntity(MemoryItem item) {
-        return new MemoryEntity(item.id, item.userInput, item.agentResponse,
+        MemoryEntity entity = new MemoryEntity(item.id, item.userInput, item.agentResponse,
                                item.timestamp, item.importance,
-                               gson.toJson(item.metadata), gson.toJson(item.embedding));
+                               gson.toJson(item.metadata), null,
+                               item.embedding != null ? EmbeddingCodec.encode(item.embedding, EMBEDDING_ENCODING) : null,
+                               // Version 0 is always stale, so the backfill encodes rows the encoder failed on
+                               item.embedding != null ? embeddingEngine.getVersion() : 0);
+        Object category = item.metadata.get("category");
+        Object feedback = item.metadata.get("user_feedback");
+        entity.category = category != null ? String.valueOf(category) : null;
+        entity.userFeedback = feedback != null ? String.valueOf(feedback) : null;
+        return entity;
+    }
+
+    /** Null for rows embedded by another engine version; their vectors are not comparable. */
+    private float[] decodeEmbedding(MemoryEntity entity) {
+        if (entity.embeddingVersion != embeddingEngine.getVersion()) return null;
+        if (entity.embeddingBlob != null) {
+            return EmbeddingCodec.decode(entity.embeddingBlob);
+        }
+        if (entity.embeddingJson != null) {
+            try {
+                return gson.fromJson(entity.embeddingJson, float[].class);
+            } catch (RuntimeException e) {
+                return null; // Malformed; the legacy migration drops it
+            }
+        }
+        return null;
     }
 
     private MemoryItem entityToItem(MemoryEntity entity) {
         Map<String, Object> metadata = gson.fromJson(entity.metadataJson, Map.class);
 
-        // BOLT: Use cache for embeddings to avoid repeated JSON parsing
+        // BOLT: Use cache for embeddings to avoid repeated decoding
         float[] embedding = embeddingCache.get(entity.id);
         if (embedding == null) {
-            embedding = gson.fromJson(entity.embeddingJson, float[].class);
+            embedding = decodeEmbedding(entity);
             if (embedding != null) {
                 embeddingCache.put(entity.id, embedding);
             }
@@ -151,10 +1036,10 @@ public class MemorySystem {
     }
 
     private float cosineSimilarityWithNorm(float[] a, float[] b, float normA) {
+        if (a.length != b.length) return 0; // Different models; never compare a prefix
         float dotProduct = 0f;
         float normB = 0f;
-        int len = Math.min(a.length, b.length);
-        for (int i = 0; i < len; i++) {
+        for (int i = 0; i < a.length; i++) {
             dotProduct += a[i] * b[i];
             normB += b[i] * b[i];
         }
@@ -162,6 +1047,26 @@ public class MemorySystem {
         return dotProduct / (float) (Math.sqrt(normA) * Math.sqrt(normB));
     }
 
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        if (text == null) return words;
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+    /** Jaccard similarity between the query words and {@code text}. */
+    private static float wordOverlap(Set<String> queryWords, String text) {
+        Set<String> other = words(text);
+        if (queryWords.isEmpty() || other.isEmpty()) return 0f;
+        int shared = 0;
+        for (String word : other) {
+            if (queryWords.contains(word)) shared++;
+        }
+        return (float) shared / (queryWords.size() + other.size() - shared);
+    }
+
     private void updatePreferences(MemoryItem item) {
         Map<String, Object> meta = item.metadata;
         if (meta != null && "positive".equals(meta.get("user_feedback"))) {
@@ -186,11 +1091,163 @@ public class MemorySystem {
         }
     }
 
+    /** Deletes a single memory and drops it from every in-memory structure. */
+    public void forget(String id) {
+        synchronized (shortTermMemory) {
+            shortTermMemory.removeIf(item -> item.id.equals(id));
+        }
+        embeddingCache.invalidate(id);
+        writeQueue.discard(item -> item.id.equals(id));
+        diskExecutor.execute(() -> {
+            memoryDao.deleteById(id);
+            memoryEdgeDao.deleteForMemories(Collections.singletonList(id));
+            recallCache.bumpGeneration();
+            dropFromIndex(id);
+        });
+    }
+
+    /** Rows deleted by a compaction pass; the DB is already updated. */
+    private void onMemoriesCompacted(Collection<String> ids) {
+        Set<String> deleted = new HashSet<>(ids);
+        synchronized (shortTermMemory) {
+            shortTermMemory.removeIf(item -> deleted.contains(item.id));
+        }
+        for (String id : deleted) embeddingCache.invalidate(id);
+        recallCache.bumpGeneration();
+        diskExecutor.execute(() -> {
+            for (String id : deleted) dropFromIndex(id);
+        });
+    }
+
+    /** Rows re-encoded by the backfill worker; the DB is already updated. */
+    private void onMemoriesReembedded(List<MemoryEntity> rows, List<float[]> embeddings, int version) {
+        if (version != embeddingEngine.getVersion()) return; // Encoded by an engine this process does not use
+        List<MemoryItem> items = new ArrayList<>(rows.size());
+        Map<String, float[]> byId = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            MemoryEntity entity = rows.get(i);
+            embeddingCache.invalidate(entity.id);
+            MemoryItem item = new MemoryItem(entity.id, entity.userInput, entity.agentResponse,
+                entity.timestamp, entity.importance, null);
+            item.embedding = embeddings.get(i);
+            items.add(item);
+            byId.put(item.id, item.embedding);
+        }
+        synchronized (shortTermMemory) {
+            for (MemoryItem item : shortTermMemory) {
+                float[] embedding = byId.get(item.id);
+                if (embedding != null) item.embedding = embedding;
+            }
+        }
+        recallCache.bumpGeneration();
+        diskExecutor.execute(() -> {
+            NearDuplicateIndex dedup = nearDuplicates;
+            for (MemoryItem item : items) {
+                if (dedup != null) {
+                    dedup.remove(item.id);
+                    dedup.add(item.id, item.userInput, item.embedding);
+                    persistNearDuplicate(dedup, item.id);
+                }
+                indexMemory(item); // Replaces the stale vector, if any
+            }
+        });
+    }
+
+    /** Must run on the disk executor. */
+    private void dropFromIndex(String id) {
+        NearDuplicateIndex dedup = nearDuplicates;
+        if (dedup != null && dedup.remove(id)) persistNearDuplicate(dedup, id);
+        memoryGraph.removeNode(id);
+        EmbeddingArena arena = embeddingArena;
+        if (arena != null && arena.remove(id)) compactArena(arena);
+        VectorIndex index = vectorIndex;
+        if (index != null && index.remove(id)) {
+            try {
+                indexStore.appendRemove(id);
+                if (indexStore.needsCheckpoint()) checkpointIndex(index);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to persist vector index removal", e);
+            }
+        }
+    }
+
+    /** Shared with other components that embed text, so the encoder is loaded once. */
+    public EmbeddingEngine getEmbeddingEngine() {
+        return embeddingEngine;
+    }
+
+    public EmbeddingCache getEmbeddingCache() {
+        return embeddingCache;
+    }
+
+    public RecallCache getRecallCache() {
+        return recallCache;
+    }
+
     public void clearAll() {
         synchronized (shortTermMemory) {
             shortTermMemory.clear();
         }
-        diskExecutor.execute(memoryDao::deleteAll);
+        embeddingCache.clear();
+        recallCache.bumpGeneration();
+        writeQueue.clear();
+        synchronized (lastMemoryByEntity) {
+            lastMemoryByEntity.clear();
+            lastStoredId = null;
+        }
+        diskExecutor.execute(() -> {
+            memoryDao.deleteAll();
+            memoryEdgeDao.deleteAll();
+            memoryGraph.clear();
+            recallCache.bumpGeneration();
+            EmbeddingArena arena = embeddingArena;
+            if (arena != null) arena.clear();
+            VectorIndex index = vectorIndex;
+            if (index != null) index.clear();
+            if (indexStore != null) indexStore.reset();
+            NearDuplicateIndex dedup = nearDuplicates;
+            if (dedup != null) dedup.clear();
+            nearDuplicateStore.reset();
+        });
         userPreferences.clear();
     }
+
+    /**
+     * Flushes queued writes, checkpoints the vector index and stops the disk
+     * executor. The work runs on the disk executor and this returns at once,
+     * so it is safe to call from {@code onDestroy}; a MemorySystem created
+     * afterwards waits for it, on its own disk executor, before loading.
+     */
+    public void shutdown() {
+        MemoryCompactor.removeListener(compactionListener);
+        EmbeddingBackfillWorker.removeListener(backfillListener);
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        lastShutdown = closed;
+        diskExecutor.execute(writeQueue::drain);
+        diskExecutor.execute(() -> {
+            try {
+                NearDuplicateIndex dedup = nearDuplicates;
+                try {
+                    if (dedup != null) nearDuplicateStore.checkpoint(dedup);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to checkpoint near-duplicate index", e);
+                }
+                nearDuplicateStore.close();
+                EmbeddingArena arena = embeddingArena;
+                if (arena != null) arena.force();
+                if (indexStore == null) return;
+                VectorIndex index = vectorIndex;
+                try {
+                    if (index != null) checkpointIndex(index);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to checkpoint vector index", e);
+                }
+                indexStore.close();
+            } finally {
+                closed.complete(null);
+            }
+        });
+        readExecutor.shutdown();
+        diskExecutor.shutdown(); // Already queued work still runs
+    }
 }
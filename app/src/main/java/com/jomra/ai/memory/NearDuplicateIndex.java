@@ -0,0 +1,203 @@
+package com.jomra.ai.memory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * TUBER: Write-time near-duplicate detection for memories.
+ *
+ * Each memory gets two 64-bit fingerprints: a SimHash of its user input
+ * (word unigrams and bigrams) and a random-hyperplane signature of its
+ * embedding. Both are split into four 16-bit bands, so a lookup only
+ * touches the handful of ids sharing a band, and candidates are confirmed
+ * by Hamming distance.
+ */
+public class NearDuplicateIndex {
+    private static final int FORMAT_MAGIC = 0x4E445550; // "NDUP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 16;
+    private static final int TEXT_MAX_HAMMING = 3;      // pigeonhole: always shares a band
+    private static final int EMBEDDING_MAX_HAMMING = 3; // ~cos >= 0.985
+    private static final long HYPERPLANE_SEED = 0x5EED_1DE5L;
+
+    private final int dim;
+    private final float[] hyperplanes; // 64 x dim
+    private final Map<String, long[]> fingerprints = new HashMap<>(); // id -> {simhash, signature}, 0 simhash = no text
+    private final Map<Long, List<String>> buckets = new HashMap<>();
+
+    public NearDuplicateIndex(int dim) {
+        this.dim = dim;
+        // Fixed seed: persisted signatures stay comparable across restarts
+        Random random = new Random(HYPERPLANE_SEED);
+        this.hyperplanes = new float[64 * dim];
+        for (int i = 0; i < hyperplanes.length; i++) hyperplanes[i] = (float) random.nextGaussian();
+    }
+
+    public int getDimension() { return dim; }
+
+    public synchronized int size() { return fingerprints.size(); }
+
+    /** Returns the id of a stored near-duplicate of this memory, or null. */
+    public synchronized String findDuplicate(String text, float[] embedding) {
+        long simHash = simHash(text);
+        long signature = signature(embedding);
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int kind = 0; kind < 2; kind++) {
+            long fingerprint = kind == 0 ? simHash : signature;
+            if (fingerprint == 0) continue;
+            int maxHamming = kind == 0 ? TEXT_MAX_HAMMING : EMBEDDING_MAX_HAMMING;
+            for (int band = 0; band < BANDS; band++) {
+                List<String> bucket = buckets.get(bucketKey(kind, band, fingerprint));
+                if (bucket == null) continue;
+                for (String id : bucket) {
+                    long candidate = fingerprints.get(id)[kind];
+                    int distance = Long.bitCount(candidate ^ fingerprint);
+                    if (distance <= maxHamming && distance < bestDistance) {
+                        best = id;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public synchronized void add(String id, String text, float[] embedding) {
+        put(id, simHash(text), signature(embedding));
+    }
+
+    /** {simHash, signature} of a stored memory, or null; what {@link NearDuplicateStore} journals. */
+    public synchronized long[] getFingerprints(String id) {
+        long[] fingerprints = this.fingerprints.get(id);
+        return fingerprints != null ? fingerprints.clone() : null;
+    }
+
+    /** Re-adds fingerprints read back from a journal. */
+    synchronized void restore(String id, long simHash, long signature) {
+        put(id, simHash, signature);
+    }
+
+    public synchronized boolean remove(String id) {
+        long[] existing = fingerprints.remove(id);
+        if (existing == null) return false;
+        for (int kind = 0; kind < 2; kind++) {
+            if (existing[kind] == 0) continue;
+            for (int band = 0; band < BANDS; band++) {
+                long key = bucketKey(kind, band, existing[kind]);
+                List<String> bucket = buckets.get(key);
+                if (bucket == null) continue;
+                bucket.remove(id);
+                if (bucket.isEmpty()) buckets.remove(key);
+            }
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        fingerprints.clear();
+        buckets.clear();
+    }
+
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(dim);
+        out.writeInt(fingerprints.size());
+        for (Map.Entry<String, long[]> entry : fingerprints.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue()[0]);
+            out.writeLong(entry.getValue()[1]);
+        }
+    }
+
+    /** Returns null if the stream was written for another format or dimension. */
+    public static NearDuplicateIndex readFrom(DataInputStream in, int dim) throws IOException {
+        if (in.readInt() != FORMAT_MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != dim) return null;
+        NearDuplicateIndex index = new NearDuplicateIndex(dim);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String id = in.readUTF();
+            index.put(id, in.readLong(), in.readLong());
+        }
+        return index;
+    }
+
+    private void put(String id, long simHash, long signature) {
+        remove(id);
+        fingerprints.put(id, new long[]{simHash, signature});
+        for (int kind = 0; kind < 2; kind++) {
+            long fingerprint = kind == 0 ? simHash : signature;
+            if (fingerprint == 0) continue;
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bucketKey(kind, band, fingerprint), k -> new ArrayList<>(2)).add(id);
+            }
+        }
+    }
+
+    private static long bucketKey(int kind, int band, long fingerprint) {
+        long bandValue = (fingerprint >>> (band * BAND_BITS)) & 0xFFFFL;
+        return ((long) (kind * BANDS + band) << BAND_BITS) | bandValue;
+    }
+
+    /** 64-bit SimHash over word unigrams and bigrams; 0 for text with no words. */
+    static long simHash(String text) {
+        String normalized = MemoryCompactor.normalize(text);
+        if (normalized.isEmpty()) return 0;
+        String[] words = normalized.split(" ");
+        int[] weights = new int[64];
+        for (int i = 0; i < words.length; i++) {
+            accumulate(weights, hash64(words[i]));
+            if (i + 1 < words.length) accumulate(weights, hash64(words[i] + ' ' + words[i + 1]));
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) fingerprint |= 1L << bit;
+        }
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    /** Sign of the projection on each of 64 fixed hyperplanes; 0 for missing or zero vectors. */
+    private long signature(float[] embedding) {
+        if (embedding == null || embedding.length != dim) return 0;
+        long signature = 0;
+        boolean nonZero = false;
+        for (int plane = 0; plane < 64; plane++) {
+            int base = plane * dim;
+            float dot = 0f;
+            for (int i = 0; i < dim; i++) dot += hyperplanes[base + i] * embedding[i];
+            if (dot != 0) nonZero = true;
+            if (dot > 0) signature |= 1L << plane;
+        }
+        if (!nonZero) return 0;
+        return signature == 0 ? 1 : signature;
+    }
+
+    private static void accumulate(int[] weights, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((hash >>> bit) & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    /** FNV-1a followed by a MurmurHash3 finalizer for well-spread bits. */
+    private static long hash64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,148 @@
+package com.jomra.ai.memory;
+
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * TUBER: Persists a {@link NearDuplicateIndex} like {@link VectorIndexStore}:
+ * a snapshot plus an append-only journal of fingerprint adds and removes, so
+ * the index survives the process being killed without re-hashing every row.
+ */
+public class NearDuplicateStore {
+    private static final String TAG = "NearDuplicateStore";
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final int CHECKPOINT_THRESHOLD = 1024;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private DataOutputStream journal;
+    private int journalEntries = 0;
+
+    public NearDuplicateStore(File directory, String name) {
+        if (!directory.exists()) directory.mkdirs();
+        this.snapshotFile = new File(directory, name + ".bin");
+        this.journalFile = new File(directory, name + ".journal");
+    }
+
+    /** Loads snapshot + journal, or returns null if nothing usable is on disk. */
+    public synchronized NearDuplicateIndex load(int dim) {
+        if (!snapshotFile.exists() && !journalFile.exists()) return null;
+
+        NearDuplicateIndex index = null;
+        if (snapshotFile.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                index = NearDuplicateIndex.readFrom(in, dim);
+            } catch (IOException e) {
+                Log.w(TAG, "Discarding unreadable near-duplicate snapshot", e);
+            }
+            if (index == null) {
+                reset();
+                return null;
+            }
+        } else {
+            index = new NearDuplicateIndex(dim);
+        }
+
+        journalEntries = 0;
+        if (journalFile.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(journalFile)))) {
+                while (true) {
+                    byte op;
+                    try {
+                        op = in.readByte();
+                    } catch (EOFException eof) {
+                        break;
+                    }
+                    String id = in.readUTF();
+                    if (op == OP_ADD) {
+                        long simHash = in.readLong();
+                        index.restore(id, simHash, in.readLong());
+                    } else {
+                        index.remove(id);
+                    }
+                    journalEntries++;
+                }
+            } catch (IOException e) {
+                // A torn tail from a crash only loses the last partial entry
+                Log.w(TAG, "Journal truncated after " + journalEntries + " entries", e);
+            }
+        }
+        return index;
+    }
+
+    /** Records {@code id}'s current fingerprints in {@code index}, or its removal if it has none. */
+    public synchronized void append(NearDuplicateIndex index, String id) throws IOException {
+        long[] fingerprints = index.getFingerprints(id);
+        DataOutputStream out = openJournal();
+        if (fingerprints != null) {
+            out.writeByte(OP_ADD);
+            out.writeUTF(id);
+            out.writeLong(fingerprints[0]);
+            out.writeLong(fingerprints[1]);
+        } else {
+            out.writeByte(OP_REMOVE);
+            out.writeUTF(id);
+        }
+        out.flush();
+        journalEntries++;
+    }
+
+    public synchronized boolean needsCheckpoint() {
+        return journalEntries >= CHECKPOINT_THRESHOLD;
+    }
+
+    /** Writes a fresh snapshot atomically and truncates the journal. */
+    public synchronized void checkpoint(NearDuplicateIndex index) throws IOException {
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            index.writeTo(out);
+        }
+        if (!tmp.renameTo(snapshotFile)) {
+            tmp.delete();
+            throw new IOException("Failed to replace near-duplicate snapshot");
+        }
+        closeJournal();
+        journalFile.delete();
+        journalEntries = 0;
+    }
+
+    public synchronized void reset() {
+        closeJournal();
+        snapshotFile.delete();
+        journalFile.delete();
+        journalEntries = 0;
+    }
+
+    public synchronized void close() {
+        closeJournal();
+    }
+
+    private DataOutputStream openJournal() throws IOException {
+        if (journal == null) {
+            journal = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+        }
+        return journal;
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ignore) {}
+            journal = null;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.jomra.ai.memory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BOLT: Resident product-quantized codes for every memory, scanned with
+ * asymmetric distance tables. 16 bytes per 128-d vector instead of 512, so the
+ * whole store stays in RAM; MemorySystem re-ranks the hits with exact cosine.
+ *
+ * Until {@link #TRAINING_THRESHOLD} vectors exist the index keeps raw vectors
+ * and scans them exactly, then trains its codebooks on them once. Removed and
+ * replaced vectors leave tombstoned slots until {@link #compactIfSparse}.
+ */
+public class PqIndex implements VectorIndex {
+    public static final int DEFAULT_SUBSPACES = 16;
+    public static final int TRAINING_THRESHOLD = 1024;
+    public static final int MAX_TRAINING_SAMPLES = 4096;
+    private static final int RETRAIN_GROWTH_FACTOR = 4;
+    private static final float COMPACT_DELETED_FRACTION = 0.25f;
+    private static final int MAGIC = 0x50515849; // "PQIX"
+    private static final int FORMAT_VERSION = 4;
+    private static final int INITIAL_CAPACITY = 256;
+
+    public static final VectorIndexStore.Format FORMAT = new VectorIndexStore.Format() {
+        @Override
+        public VectorIndex read(DataInputStream in, int dim) throws IOException {
+            return readFrom(in, dim);
+        }
+
+        @Override
+        public VectorIndex create(int dim) {
+            return new PqIndex(dim, DEFAULT_SUBSPACES);
+        }
+    };
+
+    private final int dim;
+    private final int subspaces;
+    private final ProductQuantizer quantizer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random(7);
+
+    private byte[] codes;    // slot * subspaces, valid once trained
+    private float[] raw;     // slot * dim, valid until trained
+    private String[] ids;
+    private final Map<String, Integer> idToSlot = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int count = 0;
+    private int deletedCount = 0;
+    private int rejectedCount = 0; // zero-norm vectors add() refused
+    private int trainedCorpusSize = 0; // live vectors when the codebooks were trained
+
+    public PqIndex(int dim, int subspaces) {
+        this.dim = dim;
+        this.subspaces = subspaces;
+        this.quantizer = new ProductQuantizer(dim, subspaces);
+        this.ids = new String[INITIAL_CAPACITY];
+        this.raw = new float[INITIAL_CAPACITY * dim];
+    }
+
+    @Override
+    public int getDimension() { return dim; }
+
+    public boolean isTrained() { return quantizer.isTrained(); }
+
+    @Override
+    public int getRejectedCount() {
+        lock.readLock().lock();
+        try {
+            return rejectedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** True once the corpus has grown well past its size when the codebooks were trained. */
+    public boolean needsRetraining() {
+        lock.readLock().lock();
+        try {
+            return quantizer.isTrained() && count - deletedCount >= (long) trainedCorpusSize * RETRAIN_GROWTH_FACTOR;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trains codebooks up front on an empty index (rebuild path) from a
+     * sample of a corpus of {@code corpusSize} vectors. Smaller samples are
+     * ignored and the index trains itself once it fills up.
+     */
+    public void train(List<float[]> samples, int corpusSize) {
+        lock.writeLock().lock();
+        try {
+            if (count > 0 || samples.size() < TRAINING_THRESHOLD) return;
+            List<float[]> normalized = new ArrayList<>(samples.size());
+            for (float[] sample : samples) {
+                float[] n = normalize(sample);
+                if (n != null) normalized.add(n);
+            }
+            if (normalized.isEmpty()) return;
+            trainLocked(normalized, Math.max(corpusSize, normalized.size()));
+            codes = new byte[ids.length * subspaces];
+            raw = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean add(String id, float[] vector) {
+        if (id == null || vector == null || vector.length != dim) return false;
+        float[] normalized = normalize(vector);
+        if (normalized == null) {
+            lock.writeLock().lock();
+            try {
+                rejectedCount++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = idToSlot.get(id);
+            if (existing != null) markDeleted(existing);
+
+            int slot = count;
+            ensureCapacity(slot + 1);
+            ids[slot] = id;
+            if (quantizer.isTrained()) {
+                quantizer.encode(normalized, codes, slot * subspaces);
+            } else {
+                System.arraycopy(normalized, 0, raw, slot * dim, dim);
+            }
+            count++;
+            idToSlot.put(id, slot);
+
+            if (!quantizer.isTrained() && count - deletedCount >= TRAINING_THRESHOLD) {
+                trainFromRaw();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = idToSlot.remove(id);
+            if (slot == null) return false;
+            markDeleted(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return idToSlot.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ids = new String[INITIAL_CAPACITY];
+            raw = quantizer.isTrained() ? null : new float[INITIAL_CAPACITY * dim];
+            codes = quantizer.isTrained() ? new byte[INITIAL_CAPACITY * subspaces] : null;
+            idToSlot.clear();
+            deleted.clear();
+            count = 0;
+            deletedCount = 0;
+            rejectedCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Hit> search(float[] query, int k) {
+        if (query == null || query.length != dim || k <= 0) return Collections.emptyList();
+        float[] normalized = normalize(query);
+        if (normalized == null) return Collections.emptyList();
+
+        lock.readLock().lock();
+        try {
+            if (count == deletedCount) return Collections.emptyList();
+            TopKHeap heap = new TopKHeap(k);
+            if (quantizer.isTrained()) {
+                // BOLT: Asymmetric distance - one table build, then one lookup per subspace per code
+                float[] table = new float[subspaces * ProductQuantizer.MAX_CENTROIDS];
+                quantizer.computeTable(normalized, table);
+                for (int slot = 0; slot < count; slot++) {
+                    if (deleted.get(slot)) continue;
+                    heap.offer(quantizer.score(table, codes, slot * subspaces), slot);
+                }
+            } else {
+                for (int slot = 0; slot < count; slot++) {
+                    if (deleted.get(slot)) continue;
+                    float dot = 0f;
+                    int base = slot * dim;
+                    for (int i = 0; i < dim; i++) dot += normalized[i] * raw[base + i];
+                    heap.offer(dot, slot);
+                }
+            }
+
+            int[] slots = new int[heap.size()];
+            float[] scores = new float[heap.size()];
+            int n = heap.drainDescending(slots, scores);
+            List<Hit> hits = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) hits.add(new Hit(ids[slots[i]], scores[i]));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves live slots down over tombstoned ones once those make up
+     * {@link #COMPACT_DELETED_FRACTION} of all slots, so storage and scan
+     * cost follow the live size rather than churn. Returns whether it ran.
+     */
+    public boolean compactIfSparse() {
+        lock.writeLock().lock();
+        try {
+            if (deletedCount == 0 || deletedCount < count * COMPACT_DELETED_FRACTION) return false;
+            boolean trained = quantizer.isTrained();
+            int live = 0;
+            for (int slot = 0; slot < count; slot++) {
+                if (deleted.get(slot)) continue;
+                if (live != slot) {
+                    ids[live] = ids[slot];
+                    if (trained) {
+                        System.arraycopy(codes, slot * subspaces, codes, live * subspaces, subspaces);
+                    } else {
+                        System.arraycopy(raw, slot * dim, raw, live * dim, dim);
+                    }
+                    idToSlot.put(ids[live], live);
+                }
+                live++;
+            }
+            Arrays.fill(ids, live, count, null);
+            int capacity = Math.max(INITIAL_CAPACITY, live + live / 2);
+            if (ids.length > capacity) {
+                ids = Arrays.copyOf(ids, capacity);
+                if (codes != null) codes = Arrays.copyOf(codes, capacity * subspaces);
+                if (raw != null) raw = Arrays.copyOf(raw, capacity * dim);
+            }
+            deleted.clear();
+            count = live;
+            deletedCount = 0;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void trainFromRaw() {
+        List<float[]> samples = new ArrayList<>(Math.min(count, MAX_TRAINING_SAMPLES));
+        for (int slot = 0; slot < count && samples.size() < MAX_TRAINING_SAMPLES; slot++) {
+            if (deleted.get(slot)) continue;
+            samples.add(Arrays.copyOfRange(raw, slot * dim, (slot + 1) * dim));
+        }
+        trainLocked(samples, count - deletedCount);
+
+        byte[] encoded = new byte[ids.length * subspaces];
+        float[] vector = new float[dim];
+        for (int slot = 0; slot < count; slot++) {
+            System.arraycopy(raw, slot * dim, vector, 0, dim);
+            quantizer.encode(vector, encoded, slot * subspaces);
+        }
+        codes = encoded;
+        raw = null;
+    }
+
+    private void trainLocked(List<float[]> samples, int corpusSize) {
+        quantizer.train(samples, random);
+        trainedCorpusSize = corpusSize;
+    }
+
+    private void markDeleted(int slot) {
+        if (!deleted.get(slot)) {
+            deleted.set(slot);
+            deletedCount++;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int newCapacity = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        if (codes != null) codes = Arrays.copyOf(codes, newCapacity * subspaces);
+        if (raw != null) raw = Arrays.copyOf(raw, newCapacity * dim);
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        if (norm == 0) return null;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        float[] out = new float[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = v[i] * inv;
+        return out;
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(dim);
+            out.writeInt(subspaces);
+            out.writeInt(trainedCorpusSize);
+            out.writeInt(rejectedCount);
+            quantizer.writeTo(out);
+            out.writeInt(count);
+            boolean trained = quantizer.isTrained();
+            for (int slot = 0; slot < count; slot++) {
+                out.writeUTF(ids[slot]);
+                out.writeBoolean(deleted.get(slot));
+                if (trained) {
+                    out.write(codes, slot * subspaces, subspaces);
+                } else {
+                    int base = slot * dim;
+                    for (int i = 0; i < dim; i++) out.writeFloat(raw[base + i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static PqIndex readFrom(DataInputStream in, int dim) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) return null;
+        if (in.readInt() != dim) return null;
+        PqIndex index = new PqIndex(dim, in.readInt());
+        index.trainedCorpusSize = in.readInt();
+        index.rejectedCount = in.readInt();
+        index.quantizer.readFrom(in);
+        boolean trained = index.quantizer.isTrained();
+        int count = in.readInt();
+        index.ids = new String[Math.max(count, INITIAL_CAPACITY)];
+        if (trained) {
+            index.raw = null;
+            index.codes = new byte[index.ids.length * index.subspaces];
+        } else {
+            index.raw = new float[index.ids.length * dim];
+        }
+        for (int slot = 0; slot < count; slot++) {
+            index.ids[slot] = in.readUTF();
+            boolean isDeleted = in.readBoolean();
+            if (trained) {
+                in.readFully(index.codes, slot * index.subspaces, index.subspaces);
+            } else {
+                int base = slot * dim;
+                for (int i = 0; i < dim; i++) index.raw[base + i] = in.readFloat();
+            }
+            if (isDeleted) {
+                index.deleted.set(slot);
+                index.deletedCount++;
+            } else {
+                index.idToSlot.put(index.ids[slot], slot);
+            }
+        }
+        index.count = count;
+        return index;
+    }
+}
@@ -0,0 +1,169 @@
+package com.jomra.ai.memory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * BOLT: Product quantizer for embeddings. Each vector is split into
+ * {@code subspaces} chunks and every chunk is replaced by the index of its
+ * nearest k-means centroid, so a 128-d float vector becomes 16 bytes.
+ * Queries are scored asymmetrically: the query stays in float and is turned
+ * into a per-centroid dot-product table once, then each code costs one lookup
+ * per subspace.
+ */
+public class ProductQuantizer {
+    public static final int MAX_CENTROIDS = 256;
+    private static final int TRAINING_ITERATIONS = 10;
+
+    private final int dim;
+    private final int subspaces;
+    private final int subDim;
+    private int centroids = 0;
+    private float[] codebooks; // [subspace][centroid][subDim]
+
+    public ProductQuantizer(int dim, int subspaces) {
+        if (subspaces <= 0 || dim % subspaces != 0) {
+            throw new IllegalArgumentException("dim " + dim + " not divisible into " + subspaces + " subspaces");
+        }
+        this.dim = dim;
+        this.subspaces = subspaces;
+        this.subDim = dim / subspaces;
+    }
+
+    public int getSubspaces() { return subspaces; }
+    public boolean isTrained() { return centroids > 0; }
+
+    /** Runs per-subspace k-means over {@code samples}; uses min(256, n) centroids. */
+    public void train(List<float[]> samples, Random random) {
+        int n = samples.size();
+        if (n == 0) return;
+        int k = Math.min(MAX_CENTROIDS, n);
+        float[] books = new float[subspaces * k * subDim];
+        int[] assignment = new int[n];
+        float[] sums = new float[k * subDim];
+        int[] counts = new int[k];
+
+        for (int s = 0; s < subspaces; s++) {
+            int offset = s * subDim;
+            int bookBase = s * k * subDim;
+
+            // Seed with distinct random samples
+            int[] order = shuffledIndices(n, random);
+            for (int c = 0; c < k; c++) {
+                System.arraycopy(samples.get(order[c]), offset, books, bookBase + c * subDim, subDim);
+            }
+
+            for (int iter = 0; iter < TRAINING_ITERATIONS; iter++) {
+                boolean changed = false;
+                for (int i = 0; i < n; i++) {
+                    int nearest = nearestCentroid(books, bookBase, k, samples.get(i), offset);
+                    if (iter == 0 || nearest != assignment[i]) {
+                        assignment[i] = nearest;
+                        changed = true;
+                    }
+                }
+                if (!changed) break;
+
+                Arrays.fill(sums, 0f);
+                Arrays.fill(counts, 0);
+                for (int i = 0; i < n; i++) {
+                    float[] v = samples.get(i);
+                    int c = assignment[i];
+                    counts[c]++;
+                    for (int d = 0; d < subDim; d++) sums[c * subDim + d] += v[offset + d];
+                }
+                for (int c = 0; c < k; c++) {
+                    int dst = bookBase + c * subDim;
+                    if (counts[c] == 0) {
+                        // Re-seed empty clusters instead of leaving dead codes
+                        System.arraycopy(samples.get(random.nextInt(n)), offset, books, dst, subDim);
+                    } else {
+                        for (int d = 0; d < subDim; d++) books[dst + d] = sums[c * subDim + d] / counts[c];
+                    }
+                }
+            }
+        }
+        this.codebooks = books;
+        this.centroids = k;
+    }
+
+    public void encode(float[] vector, byte[] out, int outOffset) {
+        int k = centroids;
+        for (int s = 0; s < subspaces; s++) {
+            out[outOffset + s] = (byte) nearestCentroid(codebooks, s * k * subDim, k, vector, s * subDim);
+        }
+    }
+
+    /** Fills {@code table[s * MAX_CENTROIDS + c]} with query-chunk . centroid. */
+    public void computeTable(float[] query, float[] table) {
+        int k = centroids;
+        for (int s = 0; s < subspaces; s++) {
+            int bookBase = s * k * subDim;
+            int q = s * subDim;
+            for (int c = 0; c < k; c++) {
+                int base = bookBase + c * subDim;
+                float dot = 0f;
+                for (int d = 0; d < subDim; d++) dot += query[q + d] * codebooks[base + d];
+                table[s * MAX_CENTROIDS + c] = dot;
+            }
+        }
+    }
+
+    public float score(float[] table, byte[] codes, int offset) {
+        float sum = 0f;
+        for (int s = 0; s < subspaces; s++) {
+            sum += table[s * MAX_CENTROIDS + (codes[offset + s] & 0xFF)];
+        }
+        return sum;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(centroids);
+        if (centroids == 0) return;
+        for (float v : codebooks) out.writeFloat(v);
+    }
+
+    public void readFrom(DataInputStream in) throws IOException {
+        int k = in.readInt();
+        if (k < 0 || k > MAX_CENTROIDS) throw new IOException("Corrupt codebook size " + k);
+        if (k == 0) return;
+        float[] books = new float[subspaces * k * subDim];
+        for (int i = 0; i < books.length; i++) books[i] = in.readFloat();
+        this.codebooks = books;
+        this.centroids = k;
+    }
+
+    private int nearestCentroid(float[] books, int bookBase, int k, float[] v, int offset) {
+        int best = 0;
+        float bestDist = Float.MAX_VALUE;
+        for (int c = 0; c < k; c++) {
+            int base = bookBase + c * subDim;
+            float dist = 0f;
+            for (int d = 0; d < subDim; d++) {
+                float diff = v[offset + d] - books[base + d];
+                dist += diff * diff;
+            }
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static int[] shuffledIndices(int n, Random random) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,100 @@
+package com.jomra.ai.memory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BOLT: Small LRU of recall results keyed by normalized query and topK.
+ * A result computed for a larger topK also serves smaller ones (its prefix).
+ *
+ * Every entry records the store generation it was computed at; writes bump
+ * the generation, so an entry is only served while nothing has changed since.
+ * A short TTL bounds how stale the recency component of the scores can get.
+ */
+public class RecallCache {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final long DEFAULT_TTL_MS = 60_000;
+
+    private static final class Entry {
+        final int topK;
+        final long generation;
+        final long createdAt;
+        final List<MemoryItem> results;
+
+        Entry(int topK, long generation, long createdAt, List<MemoryItem> results) {
+            this.topK = topK;
+            this.generation = generation;
+            this.createdAt = createdAt;
+            this.results = results;
+        }
+    }
+
+    private final int capacity;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry> entries;
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public RecallCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_TTL_MS);
+    }
+
+    public RecallCache(int capacity, long ttlMs) {
+        this.capacity = capacity;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<String, Entry>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > RecallCache.this.capacity;
+            }
+        };
+    }
+
+    /** Read before computing a result that will be passed to {@link #put}. */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /** Invalidates every cached result; call on any write to the store. */
+    public synchronized void bumpGeneration() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized List<MemoryItem> get(String query, int topK) {
+        Entry entry = entries.get(key(query));
+        if (entry == null || entry.topK < topK || entry.generation != generation
+                || System.currentTimeMillis() - entry.createdAt > ttlMs) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.results.size() <= topK ? entry.results : entry.results.subList(0, topK);
+    }
+
+    /** Dropped if the store changed after {@code generation} was read. */
+    public synchronized void put(String query, int topK, long generation, List<MemoryItem> results) {
+        if (generation != this.generation) return;
+        String key = key(query);
+        Entry existing = entries.get(key);
+        if (existing != null && existing.generation == generation && existing.topK > topK) return;
+        entries.put(key, new Entry(topK, generation, System.currentTimeMillis(),
+                Collections.unmodifiableList(new ArrayList<>(results))));
+    }
+
+    public synchronized long getHitCount() { return hits; }
+    public synchronized long getMissCount() { return misses; }
+
+    public synchronized float getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    private static String key(String query) {
+        return query == null ? "" : query.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,94 @@
+package com.jomra.ai.memory;
+
+/**
+ * BOLT: Allocation-free bounded top-K selector over (score, slot) pairs.
+ * Reuse one instance per scan via {@link #reset}.
+ */
+public class TopKHeap {
+    private final int capacity;
+    private final float[] scores;
+    private final int[] slots;
+    private int size;
+
+    public TopKHeap(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.scores = new float[this.capacity];
+        this.slots = new int[this.capacity];
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Lowest score currently kept, or -Infinity while the heap is not yet full. */
+    public float threshold() {
+        return size < capacity ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    public void offer(float score, int slot) {
+        if (size < capacity) {
+            int i = size++;
+            scores[i] = score;
+            slots[i] = slot;
+            siftUp(i);
+        } else if (score > scores[0]) {
+            scores[0] = score;
+            slots[0] = slot;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Empties the heap into the arrays in descending score order.
+     * Returns the number of entries written.
+     */
+    public int drainDescending(int[] slotsOut, float[] scoresOut) {
+        int n = size;
+        for (int i = n - 1; i >= 0; i--) {
+            slotsOut[i] = slots[0];
+            if (scoresOut != null) scoresOut[i] = scores[0];
+            size--;
+            if (size > 0) {
+                scores[0] = scores[size];
+                slots[0] = slots[size];
+                siftDown(0);
+            }
+        }
+        return n;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && scores[right] < scores[left]) smallest = right;
+            if (scores[i] <= scores[smallest]) break;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        float s = scores[a];
+        scores[a] = scores[b];
+        scores[b] = s;
+        int t = slots[a];
+        slots[a] = slots[b];
+        slots[b] = t;
+    }
+}
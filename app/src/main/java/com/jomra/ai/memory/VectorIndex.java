@@ -0,0 +1,36 @@
+package com.jomra.ai.memory;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Candidate generator behind {@link MemorySystem#recall}. Implementations
+ * return approximate neighbours; MemorySystem re-ranks them with exact cosine.
+ */
+public interface VectorIndex {
+    int getDimension();
+    boolean add(String id, float[] vector);
+    boolean remove(String id);
+    boolean contains(String id);
+    void clear();
+    int size();
+
+    /** Vectors refused by {@link #add} for having zero norm, so size() can be reconciled with the store. */
+    int getRejectedCount();
+
+    /** Returns up to {@code k} live ids ordered by descending estimated similarity. */
+    List<Hit> search(float[] query, int k);
+
+    void writeTo(DataOutputStream out) throws IOException;
+
+    class Hit {
+        public final String id;
+        public final float similarity;
+
+        public Hit(String id, float similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+    }
+}
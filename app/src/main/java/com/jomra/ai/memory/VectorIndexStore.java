@@ -0,0 +1,158 @@
+package com.jomra.ai.memory;
+
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * TUBER: Persists a {@link VectorIndex} next to the Room database as a snapshot
+ * plus an append-only journal, so remember() only pays for one small append.
+ */
+public class VectorIndexStore {
+    private static final String TAG = "VectorIndexStore";
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final int CHECKPOINT_THRESHOLD = 1024;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final Format format;
+    private DataOutputStream journal;
+    private int journalEntries = 0;
+
+    /** Snapshot codec for one index type. */
+    public interface Format {
+        /** Returns null when the snapshot does not match {@code dim}. */
+        VectorIndex read(DataInputStream in, int dim) throws IOException;
+        VectorIndex create(int dim);
+    }
+
+    public VectorIndexStore(File directory, String name, Format format) {
+        if (!directory.exists()) directory.mkdirs();
+        this.snapshotFile = new File(directory, name + ".idx");
+        this.journalFile = new File(directory, name + ".journal");
+        this.format = format;
+    }
+
+    /** Loads snapshot + journal, or returns null if nothing usable is on disk. */
+    public synchronized VectorIndex load(int dim) {
+        if (!snapshotFile.exists() && !journalFile.exists()) return null;
+
+        VectorIndex index = null;
+        if (snapshotFile.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                index = format.read(in, dim);
+            } catch (IOException e) {
+                Log.w(TAG, "Discarding unreadable index snapshot", e);
+            }
+            if (index == null) {
+                reset();
+                return null;
+            }
+        } else {
+            index = format.create(dim);
+        }
+
+        journalEntries = 0;
+        if (journalFile.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(journalFile)))) {
+                while (true) {
+                    byte op;
+                    try {
+                        op = in.readByte();
+                    } catch (EOFException eof) {
+                        break;
+                    }
+                    String id = in.readUTF();
+                    if (op == OP_ADD) {
+                        float[] vector = new float[in.readInt()];
+                        for (int i = 0; i < vector.length; i++) vector[i] = in.readFloat();
+                        index.add(id, vector);
+                    } else {
+                        index.remove(id);
+                    }
+                    journalEntries++;
+                }
+            } catch (IOException e) {
+                // A torn tail from a crash only loses the last partial entry
+                Log.w(TAG, "Journal truncated after " + journalEntries + " entries", e);
+            }
+        }
+        return index;
+    }
+
+    public synchronized void appendAdd(String id, float[] vector) throws IOException {
+        DataOutputStream out = openJournal();
+        out.writeByte(OP_ADD);
+        out.writeUTF(id);
+        out.writeInt(vector.length);
+        for (float v : vector) out.writeFloat(v);
+        out.flush();
+        journalEntries++;
+    }
+
+    public synchronized void appendRemove(String id) throws IOException {
+        DataOutputStream out = openJournal();
+        out.writeByte(OP_REMOVE);
+        out.writeUTF(id);
+        out.flush();
+        journalEntries++;
+    }
+
+    public synchronized boolean needsCheckpoint() {
+        return journalEntries >= CHECKPOINT_THRESHOLD;
+    }
+
+    /** Writes a fresh snapshot atomically and truncates the journal. */
+    public synchronized void checkpoint(VectorIndex index) throws IOException {
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            index.writeTo(out);
+        }
+        if (!tmp.renameTo(snapshotFile)) {
+            tmp.delete();
+            throw new IOException("Failed to replace index snapshot");
+        }
+        closeJournal();
+        journalFile.delete();
+        journalEntries = 0;
+    }
+
+    public synchronized void reset() {
+        closeJournal();
+        snapshotFile.delete();
+        journalFile.delete();
+        journalEntries = 0;
+    }
+
+    public synchronized void close() {
+        closeJournal();
+    }
+
+    private DataOutputStream openJournal() throws IOException {
+        if (journal == null) {
+            journal = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+        }
+        return journal;
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ignore) {}
+            journal = null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.jomra.ai.memory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uncased BERT WordPiece tokenizer over a {@code vocab.txt} (one token per
+ * line, the line number is the id), as shipped with BERT-family sentence
+ * encoders. Text is lowercased, accents are stripped and punctuation is split
+ * off before greedy longest-match-first subword lookup.
+ */
+public class WordPieceTokenizer {
+    private static final String PAD = "[PAD]";
+    private static final String UNK = "[UNK]";
+    private static final String CLS = "[CLS]";
+    private static final String SEP = "[SEP]";
+    private static final int MAX_WORD_CHARS = 100;
+
+    private final Map<String, Integer> vocab;
+    private final int padId;
+    private final int unkId;
+    private final int clsId;
+    private final int sepId;
+
+    private WordPieceTokenizer(Map<String, Integer> vocab) {
+        this.vocab = vocab;
+        this.padId = vocab.getOrDefault(PAD, 0);
+        this.unkId = vocab.get(UNK);
+        this.clsId = vocab.get(CLS);
+        this.sepId = vocab.get(SEP);
+    }
+
+    /** Reads a vocabulary; throws if it lacks the [UNK], [CLS] or [SEP] tokens. */
+    public static WordPieceTokenizer load(InputStream in) throws IOException {
+        Map<String, Integer> vocab = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int id = 0;
+            while ((line = reader.readLine()) != null) {
+                vocab.putIfAbsent(line.trim(), id++);
+            }
+        }
+        if (!vocab.containsKey(UNK) || !vocab.containsKey(CLS) || !vocab.containsKey(SEP)) {
+            throw new IOException("Vocabulary is missing special tokens");
+        }
+        return new WordPieceTokenizer(vocab);
+    }
+
+    /**
+     * Writes exactly {@code maxLength} ids ([CLS] tokens [SEP], then padding)
+     * and returns the unpadded length. Longer texts are truncated.
+     */
+    public int encode(String text, IntBuffer ids, int maxLength) {
+        int length = 0;
+        ids.put(clsId);
+        length++;
+        int limit = maxLength - 1; // room for [SEP]
+        for (String word : basicTokens(text)) {
+            if (length >= limit) break;
+            length = appendWordPieces(word, ids, length, limit);
+        }
+        ids.put(sepId);
+        length++;
+        for (int i = length; i < maxLength; i++) ids.put(padId);
+        return length;
+    }
+
+    private int appendWordPieces(String word, IntBuffer ids, int length, int limit) {
+        if (word.length() > MAX_WORD_CHARS) {
+            ids.put(unkId);
+            return length + 1;
+        }
+        // Resolve the whole word first: a word with any unknown piece becomes a single [UNK]
+        int[] pieces = new int[word.length()];
+        int count = 0;
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer id = null;
+            while (start < end) {
+                String piece = start > 0 ? "##" + word.substring(start, end) : word.substring(start, end);
+                id = vocab.get(piece);
+                if (id != null) break;
+                end--;
+            }
+            if (id == null) {
+                ids.put(unkId);
+                return length + 1;
+            }
+            pieces[count++] = id;
+            start = end;
+        }
+        for (int i = 0; i < count && length < limit; i++) {
+            ids.put(pieces[i]);
+            length++;
+        }
+        return length;
+    }
+
+    /** Lowercased, accent-stripped words with each punctuation character as its own token. */
+    private static List<String> basicTokens(String text) {
+        String folded = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+                flush(word, tokens);
+            } else if (isPunctuation(c)) {
+                flush(word, tokens);
+                tokens.add(String.valueOf(c));
+            } else {
+                word.append(c);
+            }
+        }
+        flush(word, tokens);
+        return tokens;
+    }
+
+    private static void flush(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static boolean isPunctuation(char c) {
+        if ((c >= 33 && c <= 47) || (c >= 58 && c <= 64) || (c >= 91 && c <= 96) || (c >= 123 && c <= 126)) {
+            return true;
+        }
+        switch (Character.getType(c)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.jomra.ai.memory;
+
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * TUBER: Group-commit buffer in front of the memory table.
+ *
+ * Items are drained on the (single-threaded) disk executor in batches of up
+ * to {@code batchSize}, each written by one {@link BatchWriter} call, when a
+ * batch fills, {@code maxDelayMs} after the first pending item, or on
+ * {@link #flush()}. Producers block while the queue is at capacity.
+ */
+public class WriteBehindQueue {
+    private static final String TAG = "WriteBehindQueue";
+
+    /** Persists one batch; called on the disk executor. */
+    public interface BatchWriter {
+        void write(List<MemoryItem> batch) throws Exception;
+    }
+
+    private final ScheduledExecutorService executor;
+    private final BatchWriter writer;
+    private final BlockingQueue<MemoryItem> pending;
+    private final int batchSize;
+    private final long maxDelayMs;
+    private final AtomicBoolean drainQueued = new AtomicBoolean(false);
+    private final AtomicBoolean timerArmed = new AtomicBoolean(false);
+    private volatile long writtenCount = 0;
+    private volatile long batchCount = 0;
+
+    public WriteBehindQueue(ScheduledExecutorService executor, BatchWriter writer,
+                            int capacity, int batchSize, long maxDelayMs) {
+        this.executor = executor;
+        this.writer = writer;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /** Queues {@code item}, blocking while the queue is full. Returns false if interrupted. */
+    public boolean enqueue(MemoryItem item) {
+        if (!pending.offer(item)) {
+            // Backpressure: make sure a drain is coming, then wait for room
+            scheduleDrain();
+            try {
+                pending.put(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.w(TAG, "Interrupted while waiting for queue space, dropping memory " + item.id);
+                return false;
+            }
+        }
+        if (pending.size() >= batchSize) {
+            scheduleDrain();
+        } else if (timerArmed.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                timerArmed.set(false);
+                drain();
+            }, maxDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /** Completes once every item queued before this call has been written (or failed). */
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(this::drain, executor);
+    }
+
+    /** Drops queued items matching {@code filter}; used when memories are forgotten before commit. */
+    public void discard(Predicate<MemoryItem> filter) {
+        pending.removeIf(filter);
+    }
+
+    public void clear() {
+        pending.clear();
+    }
+
+    public int getPendingCount() { return pending.size(); }
+    public long getWrittenCount() { return writtenCount; }
+    public long getBatchCount() { return batchCount; }
+
+    private void scheduleDrain() {
+        if (drainQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                drainQueued.set(false);
+                drain();
+            });
+        }
+    }
+
+    /** Must run on the disk executor. */
+    void drain() {
+        List<MemoryItem> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                writer.write(batch);
+                writtenCount += batch.size();
+                batchCount++;
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to write batch of " + batch.size() + " memories", e);
+            }
+            batch.clear();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.jomra.ai.agents.*;
 import com.jomra.ai.memory.MemorySystem;
 import com.jomra.ai.memory.MemoryItem;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Moaziz-style Advanced Orchestrator.
@@ -13,6 +14,8 @@ import java.util.*;
  */
 public class MoazizOrchestrator {
     private static final String TAG = "MoazizOrchestrator";
+    private static final int CONTEXT_MEMORIES = 3;
+    private static final int CONTEXT_HOPS = 2; // follow-ups, shared entities and tool results of the matches
 
     private final MoazizPolicy policy;
     private final AdversarialTrinity security;
@@ -37,15 +40,45 @@ public class MoazizOrchestrator {
         avgAccuracy.put(agent.getId(), 0.9f);
     }
 
+    public Collection<Agent> getRegisteredAgents() {
+        return Collections.unmodifiableCollection(registeredAgents.values());
+    }
+
     public AgentResponse process(AgentContext context, String userInput) {
+        return process(context, userInput, ResponseSink.NONE);
+    }
+
+    /**
+     * Reports each stage to {@code sink} as it completes. Inner agents'
+     * reasoning and tool events are forwarded; their partial text is not,
+     * since a later agent may supersede it.
+     */
+    public AgentResponse process(AgentContext context, String userInput, ResponseSink sink) {
+        // BOLT: Start retrieval first so it overlaps screening and routing; matches are
+        // expanded through the memory graph (L3 relational state)
+        CompletableFuture<List<MemoryItem>> recallFuture =
+            memory.recallExpandedAsync(userInput, CONTEXT_MEMORIES, CONTEXT_HOPS);
+
         // 1. Security Screening (L6 Guard)
         AdversarialTrinity.ScreeningResult securityResult = security.screenPrompt(userInput);
         if (!securityResult.safe) {
+            recallFuture.cancel(true);
             return AgentResponse.error("Security Violation: " + securityResult.reason);
         }
+        sink.onReasoningStep("Screened the request.");
+
+        // 3. Adaptive Agent Routing (AAR / L2-L3)
+        List<String> selectedAgentIds = selectAgents(userInput);
+        if (selectedAgentIds.isEmpty()) {
+            recallFuture.cancel(true);
+            return AgentResponse.error("No suitable agents found for this task");
+        }
 
         // 2. Context Retrieval (L3 Relational State)
-        List<MemoryItem> relatedMemories = memory.recall(userInput, 3);
+        List<MemoryItem> relatedMemories = awaitRecall(recallFuture);
+        if (!relatedMemories.isEmpty()) {
+            sink.onReasoningStep("Recalled " + relatedMemories.size() + " related memories.");
+        }
         StringBuilder enrichedInput = new StringBuilder(userInput);
         if (!relatedMemories.isEmpty()) {
             enrichedInput.append("\n\nContext from memory:");
@@ -54,18 +87,19 @@ public class MoazizOrchestrator {
             }
         }
         String finalInputText = enrichedInput.toString();
-
-        // 3. Adaptive Agent Routing (AAR / L2-L3)
-        List<String> selectedAgentIds = selectAgents(userInput);
-        if (selectedAgentIds.isEmpty()) {
-            return AgentResponse.error("No suitable agents found for this task");
-        }
+        // Stages that recall on their own key on the raw input, so they hit this turn's recall cache entry
+        Map<String, Object> stageParameters = Collections.singletonMap(AgentInput.PARAM_ORIGINAL_QUERY, userInput);
 
         // 3. Multi-Agent Workflow (MAWO / L1-L4)
         // Sequential execution with Bounded Autonomy (BAP)
         AgentResponse finalResponse = null;
+        boolean noCache = false; // any stage with side effects makes the whole answer uncacheable
         float currentConfidence = 1.0f;
         int stepCount = 0;
+        ResponseSink stageSink = new ResponseSink() {
+            @Override public void onReasoningStep(String step) { sink.onReasoningStep(step); }
+            @Override public void onToolEvent(String toolName, String event) { sink.onToolEvent(toolName, event); }
+        };
 
         for (String agentId : selectedAgentIds) {
             Agent agent = registeredAgents.get(agentId);
@@ -79,11 +113,16 @@ public class MoazizOrchestrator {
 
             long start = System.currentTimeMillis();
             try {
-                AgentInput input = new AgentInput(finalInputText, AgentInput.InputType.TEXT, Collections.emptyMap());
-                AgentResponse response = agent.process(context, input);
+                AgentInput input = new AgentInput(finalInputText, AgentInput.InputType.TEXT, stageParameters);
+                sink.onReasoningStep("Consulting " + agent.getName() + ".");
+                AgentResponse response = agent.processStreaming(context, input, stageSink);
 
                 long latency = System.currentTimeMillis() - start;
                 updateMetrics(agentId, latency, response.getConfidence());
+                Map<String, Object> stageMetadata = response.getMetadata();
+                if (stageMetadata != null && Boolean.TRUE.equals(stageMetadata.get(ResponseCache.NO_CACHE))) {
+                    noCache = true;
+                }
 
                 if (response.isSuccess()) {
                     finalResponse = response;
@@ -95,7 +134,40 @@ public class MoazizOrchestrator {
             stepCount++;
         }
 
-        return finalResponse != null ? finalResponse : AgentResponse.error("Workflow failed");
+        if (finalResponse == null) return AgentResponse.error("Workflow failed");
+        if (noCache) finalResponse = withNoCache(finalResponse);
+        sink.onPartialText(finalResponse.getText());
+        return finalResponse;
+    }
+
+    private static AgentResponse withNoCache(AgentResponse response) {
+        Map<String, Object> metadata = response.getMetadata() != null
+            ? new HashMap<>(response.getMetadata()) : new HashMap<>();
+        metadata.put(ResponseCache.NO_CACHE, true);
+        return new AgentResponse.Builder()
+            .status(response.getStatus())
+            .text(response.getText())
+            .confidence(response.getConfidence())
+            .metadata(metadata)
+            .action(response.getSuggestedAction())
+            .build();
+    }
+
+    /**
+     * Waits for the recall started before screening, however long it takes, so a
+     * cold encoder or index rebuild delays the answer rather than stripping its
+     * context. Only a failed recall yields no memories.
+     */
+    private List<MemoryItem> awaitRecall(CompletableFuture<List<MemoryItem>> recallFuture) {
+        try {
+            return recallFuture.get();
+        } catch (InterruptedException e) {
+            recallFuture.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.w(TAG, "Memory recall failed, continuing without context", e);
+        }
+        return Collections.emptyList();
     }
 
     private List<String> selectAgents(String query) {
@@ -134,6 +134,11 @@ public class ModelManager {
         }
     }
 
+    /** Opens a companion file bundled next to the models, e.g. a tokenizer vocabulary. */
+    public InputStream openAsset(String name) throws IOException {
+        return context.getAssets().open(MODELS_DIR + "/" + name);
+    }
+
     public void unloadAll() {
         for (Interpreter interpreter : loadedModels.values()) interpreter.close();
         loadedModels.clear();
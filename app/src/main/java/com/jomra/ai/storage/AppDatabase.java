@@ -4,14 +4,105 @@ import android.content.Context;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import android.database.Cursor;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.jomra.ai.memory.MemoryDao;
+import com.jomra.ai.memory.MemoryEdgeDao;
+import com.jomra.ai.memory.MemoryEdgeEntity;
 import com.jomra.ai.memory.MemoryEntity;
+import com.jomra.ai.memory.MemoryFtsEntity;
 
-@Database(entities = {MemoryEntity.class, HistoryEntity.class}, version = 3, exportSchema = false)
+@Database(entities = {MemoryEntity.class, MemoryFtsEntity.class, MemoryEdgeEntity.class, HistoryEntity.class},
+        version = 8, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
+    public static final String DATABASE_NAME = "jomra_database";
     private static volatile AppDatabase INSTANCE;
 
+    // TUBER: Additive column; existing JSON embeddings are converted in the background by MemorySystem
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE memories ADD COLUMN embeddingBlob BLOB");
+        }
+    };
+
+    // TUBER: Same table and sync triggers Room generates for MemoryFtsEntity, then index existing rows
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `memories_fts` USING FTS4("
+                    + "`userInput` TEXT, `agentResponse` TEXT, content=`memories`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_memories_fts_BEFORE_UPDATE "
+                    + "BEFORE UPDATE ON `memories` BEGIN DELETE FROM `memories_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_memories_fts_BEFORE_DELETE "
+                    + "BEFORE DELETE ON `memories` BEGIN DELETE FROM `memories_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_memories_fts_AFTER_UPDATE "
+                    + "AFTER UPDATE ON `memories` BEGIN INSERT INTO `memories_fts`(`docid`, `userInput`, `agentResponse`) "
+                    + "VALUES (NEW.`rowid`, NEW.`userInput`, NEW.`agentResponse`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_memories_fts_AFTER_INSERT "
+                    + "AFTER INSERT ON `memories` BEGIN INSERT INTO `memories_fts`(`docid`, `userInput`, `agentResponse`) "
+                    + "VALUES (NEW.`rowid`, NEW.`userInput`, NEW.`agentResponse`); END");
+            db.execSQL("INSERT INTO `memories_fts`(`memories_fts`) VALUES('rebuild')");
+        }
+    };
+
+    // TUBER: Existing rows are marked legacy (0) and re-embedded by EmbeddingBackfillWorker
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE memories ADD COLUMN embeddingVersion INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_memories_embeddingVersion` ON `memories` (`embeddingVersion`)");
+        }
+    };
+
+    // TUBER: Promote filterable metadata keys to indexed columns, backfilled from metadataJson
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE memories ADD COLUMN category TEXT");
+            db.execSQL("ALTER TABLE memories ADD COLUMN userFeedback TEXT");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_memories_category_timestamp` ON `memories` (`category`, `timestamp`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_memories_userFeedback` ON `memories` (`userFeedback`)");
+
+            Gson gson = new Gson();
+            try (Cursor cursor = db.query("SELECT rowid, metadataJson FROM memories WHERE metadataJson IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    JsonObject metadata;
+                    try {
+                        metadata = gson.fromJson(cursor.getString(1), JsonObject.class);
+                    } catch (Exception e) {
+                        continue;
+                    }
+                    if (metadata == null) continue;
+                    String category = stringValue(metadata.get("category"));
+                    String feedback = stringValue(metadata.get("user_feedback"));
+                    if (category == null && feedback == null) continue;
+                    db.execSQL("UPDATE memories SET category = ?, userFeedback = ? WHERE rowid = ?",
+                            new Object[]{category, feedback, cursor.getLong(0)});
+                }
+            }
+        }
+
+        private String stringValue(JsonElement element) {
+            return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+        }
+    };
+
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `memory_edges` (`sourceId` TEXT NOT NULL, `targetId` TEXT NOT NULL, "
+                    + "`type` TEXT NOT NULL, `createdAt` INTEGER NOT NULL, PRIMARY KEY(`sourceId`, `targetId`, `type`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_memory_edges_targetId` ON `memory_edges` (`targetId`)");
+        }
+    };
+
     public abstract MemoryDao memoryDao();
+    public abstract MemoryEdgeDao memoryEdgeDao();
     public abstract HistoryDao historyDao();
 
     public static AppDatabase getDatabase(final Context context) {
@@ -19,7 +110,8 @@ public abstract class AppDatabase extends RoomDatabase {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                            AppDatabase.class, "jomra_database")
+                            AppDatabase.class, DATABASE_NAME)
+                            .addMigrations(MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8)
                             .fallbackToDestructiveMigration() // TUBER: Destructive migration for simple schema evolution
                             .build();
                 }